@@ -0,0 +1,101 @@
+package com.bear.librv.benchmark;
+
+import com.bear.librv.DataManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DataManager operations of the bind path and of the usual updates.
+ * Every mutating benchmark restores the data before it returns, so the size and the layout stay the same.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@SuppressWarnings("rawtypes")
+public class DataManagerBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int rows;
+
+    @Param({Fixture.LAYOUT_LIST, Fixture.LAYOUT_MIXED})
+    public String layout;
+
+    // With a KeyExtractor update(Object) looks up the key index instead of scanning the list.
+    @Param({"false", "true"})
+    public boolean keyed;
+
+    private Fixture mFixture;
+    private DataManager mDataManager;
+    private List mInsertedData;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mFixture = new Fixture(rows, layout);
+        mDataManager = mFixture.mDataManager;
+        if (keyed) {
+            mDataManager.setKeyExtractor(new DataManager.KeyExtractor() {
+                @Override
+                public Object getKey(Object data) {
+                    return data;
+                }
+            });
+        }
+        mInsertedData = Collections.singletonList(new Fixture.TextItem(-1L));
+    }
+
+    @Benchmark
+    public Object get() {
+        return mDataManager.get(mFixture.mPositions[next()]);
+    }
+
+    @Benchmark
+    public int size() {
+        return mDataManager.size();
+    }
+
+    @Benchmark
+    public long addRemove() {
+        int position = mFixture.mListPositions[next()];
+        mDataManager.add(position, mInsertedData);
+        mDataManager.remove(position);
+        return mFixture.mObserver.mCount;
+    }
+
+    @Benchmark
+    public long updateObject() {
+        mDataManager.update(mFixture.mListData[next()]);
+        return mFixture.mObserver.mCount;
+    }
+
+    @Benchmark
+    public long move() {
+        int index = next();
+        int fromPosition = mFixture.mListPositions[index];
+        int toPosition = mFixture.mListPositions[(index + 1) & Fixture.SAMPLE_MASK];
+        mDataManager.move(fromPosition, toPosition);
+        mDataManager.move(toPosition, fromPosition);
+        return mFixture.mObserver.mCount;
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & Fixture.SAMPLE_MASK;
+        return mIndex;
+    }
+}
@@ -0,0 +1,209 @@
+package com.bear.librv.benchmark;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bear.librv.CustomData;
+import com.bear.librv.DataManager;
+import com.bear.librv.VHAdapter;
+import com.bear.librv.VHBridge;
+import com.bear.librv.VHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An adapter with several registered types and the rows of one benchmark.
+ * The "list" layout only has list rows, the "mixed" layout puts half of the rows into CURSOR_COUNT cursor segments
+ * spread between the list rows. The sampled positions are precomputed, so the benchmarks do not draw random numbers.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class Fixture {
+    static final String LAYOUT_LIST = "list";
+    static final String LAYOUT_MIXED = "mixed";
+    // A power of two, the benchmarks wrap the sample index with SAMPLE_MASK.
+    static final int SAMPLE_COUNT = 1024;
+    static final int SAMPLE_MASK = SAMPLE_COUNT - 1;
+    private static final int CURSOR_COUNT = 4;
+    private static final int CUSTOM_DATA_TYPE = 1;
+    private static final Context CONTEXT = new Context() {
+    };
+
+    final VHAdapter mAdapter;
+    final DataManager mDataManager;
+    final CountingObserver mObserver = new CountingObserver();
+    // Any position.
+    final int[] mPositions = new int[SAMPLE_COUNT];
+    // Positions of list rows, which can be added before, removed, updated and moved.
+    final int[] mListPositions = new int[SAMPLE_COUNT];
+    // The data at mListPositions.
+    final Object[] mListData = new Object[SAMPLE_COUNT];
+    // Data of the registered types, a cursor, a CustomData and an unregistered type.
+    final Object[] mRegisterSamples = new Object[SAMPLE_COUNT];
+    private final int[] mCursorStarts = new int[CURSOR_COUNT];
+    private int mCursorRows;
+
+    static final class TextItem {
+        final long mId;
+
+        TextItem(long id) {
+            mId = id;
+        }
+    }
+
+    static final class ImageItem {
+        final long mId;
+
+        ImageItem(long id) {
+            mId = id;
+        }
+    }
+
+    static final class VideoItem {
+        final long mId;
+
+        VideoItem(long id) {
+            mId = id;
+        }
+    }
+
+    // Never created, the benchmarks do not bind.
+    static final class NoopBridge extends VHBridge<VHolder> {
+        @NonNull
+        @Override
+        protected VHolder onCreateViewHolder(@NonNull View itemView) {
+            return new VHolder(itemView);
+        }
+
+        @Override
+        protected int layoutId() {
+            return 0;
+        }
+    }
+
+    // The notification sink, stands in for the observers of a RecyclerView.
+    static final class CountingObserver extends RecyclerView.AdapterDataObserver {
+        long mCount;
+
+        @Override
+        public void onChanged() {
+            mCount++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            mCount++;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mCount++;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mCount++;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mCount++;
+        }
+    }
+
+    Fixture(int rows, String layout) {
+        mAdapter = new VHAdapter(null);
+        mAdapter.register(new NoopBridge(), TextItem.class);
+        mAdapter.register(new NoopBridge(), ImageItem.class);
+        mAdapter.register(new NoopBridge(), VideoItem.class);
+        mAdapter.register(new NoopBridge(), Cursor.class);
+        mAdapter.register(new NoopBridge(), CustomData.of(CUSTOM_DATA_TYPE));
+        mDataManager = mAdapter.getDataManager();
+        fill(rows, layout);
+        mAdapter.registerAdapterDataObserver(mObserver);
+        sample(rows);
+    }
+
+    /**
+     * Attach the adapter to a RecyclerView, which turns on the caches living only while attached.
+     */
+    void attach() {
+        RecyclerView recyclerView = new RecyclerView(CONTEXT);
+        recyclerView.setAdapter(mAdapter);
+    }
+
+    private void fill(int rows, String layout) {
+        mCursorRows = LAYOUT_MIXED.equals(layout) ? rows / (2 * CURSOR_COUNT) : 0;
+        int listRows = rows - CURSOR_COUNT * mCursorRows;
+        List dataList = new ArrayList(listRows);
+        for (int i = 0; i < listRows; i++) {
+            dataList.add(newItem(i));
+        }
+        mDataManager.setData(dataList);
+        if (mCursorRows == 0) {
+            return;
+        }
+        // [list, cursor] * CURSOR_COUNT followed by the rest of the list rows.
+        int listChunk = listRows / (CURSOR_COUNT + 1);
+        for (int i = 0; i < CURSOR_COUNT; i++) {
+            mCursorStarts[i] = (i + 1) * listChunk + i * mCursorRows;
+            mDataManager.addCursor(mCursorStarts[i], new RowCursor(mCursorRows, (long) rows + (long) i * mCursorRows));
+        }
+    }
+
+    private void sample(int rows) {
+        Random random = new Random(rows);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            mPositions[i] = random.nextInt(rows);
+            int listPosition;
+            do {
+                listPosition = random.nextInt(rows);
+            } while (isCursorRow(listPosition));
+            mListPositions[i] = listPosition;
+            mListData[i] = mDataManager.get(listPosition);
+        }
+        Object cursor = mCursorRows > 0 ? mDataManager.get(mCursorStarts[0]) : new RowCursor(1, 0L);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    mRegisterSamples[i] = cursor;
+                    break;
+                case 1:
+                    mRegisterSamples[i] = CustomData.of(CUSTOM_DATA_TYPE);
+                    break;
+                case 2:
+                    // Unregistered, isRegister falls through every map.
+                    mRegisterSamples[i] = "unregistered";
+                    break;
+                default:
+                    mRegisterSamples[i] = newItem(i);
+                    break;
+            }
+        }
+    }
+
+    private boolean isCursorRow(int position) {
+        for (int i = 0; i < CURSOR_COUNT && mCursorRows > 0; i++) {
+            if (position >= mCursorStarts[i] && position < mCursorStarts[i] + mCursorRows) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object newItem(long id) {
+        switch ((int) (id % 3)) {
+            case 0:
+                return new TextItem(id);
+            case 1:
+                return new ImageItem(id);
+            default:
+                return new VideoItem(id);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.bear.librv.benchmark;
+
+import android.database.AbstractCursor;
+
+/**
+ * A Cursor over generated rows, the values are derived from the position so a row read does not allocate.
+ */
+final class RowCursor extends AbstractCursor {
+    private static final String[] COLUMN_NAMES = {"_id", "title"};
+    private static final String TITLE = "title";
+    private final int mCount;
+    private final long mIdOffset;
+
+    RowCursor(int count, long idOffset) {
+        mCount = count;
+        mIdOffset = idOffset;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return COLUMN_NAMES;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        checkPosition();
+        return columnIndex == 0 ? String.valueOf(getLong(0)) : TITLE;
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        checkPosition();
+        return columnIndex == 0 ? mIdOffset + mPos : 0L;
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bear.librv.benchmark;
+
+import com.bear.librv.VHAdapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type resolution of VHAdapter, which runs for every bind and every layout pass.
+ * Detached measures the resolution itself, attached measures it behind the per-position view type cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@SuppressWarnings("rawtypes")
+public class VHAdapterBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int rows;
+
+    @Param({Fixture.LAYOUT_LIST, Fixture.LAYOUT_MIXED})
+    public String layout;
+
+    @Param({"false", "true"})
+    public boolean attached;
+
+    private Fixture mFixture;
+    private VHAdapter mAdapter;
+    private int mIndex;
+    private int mPosition;
+
+    @Setup
+    public void setUp() {
+        mFixture = new Fixture(rows, layout);
+        mAdapter = mFixture.mAdapter;
+        if (attached) {
+            mFixture.attach();
+        }
+    }
+
+    @Benchmark
+    public int getItemViewTypeRandom() {
+        return mAdapter.getItemViewType(mFixture.mPositions[next()]);
+    }
+
+    // In order like a scroll, which binds the neighbouring positions.
+    @Benchmark
+    public int getItemViewTypeSequential() {
+        mPosition = mPosition + 1 < rows ? mPosition + 1 : 0;
+        return mAdapter.getItemViewType(mPosition);
+    }
+
+    @Benchmark
+    public boolean isRegister() {
+        return mAdapter.isRegister(mFixture.mRegisterSamples[next()]);
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & Fixture.SAMPLE_MASK;
+        return mIndex;
+    }
+}
@@ -0,0 +1,7 @@
+package android.content;
+
+/**
+ * JVM stand-in, only passed through by the data path.
+ */
+public abstract class Context {
+}
@@ -0,0 +1,103 @@
+package android.database;
+
+/**
+ * JVM stand-in, keeps the position like the framework class and leaves the values to the subclass.
+ */
+public abstract class AbstractCursor implements Cursor {
+    protected int mPos = -1;
+    private boolean mClosed;
+
+    @Override
+    public abstract int getCount();
+
+    @Override
+    public abstract String[] getColumnNames();
+
+    public boolean onMove(int oldPosition, int newPosition) {
+        return true;
+    }
+
+    @Override
+    public int getPosition() {
+        return mPos;
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        int count = getCount();
+        if (position >= count) {
+            mPos = count;
+            return false;
+        }
+        if (position < 0) {
+            mPos = -1;
+            return false;
+        }
+        if (position == mPos) {
+            return true;
+        }
+        if (!onMove(mPos, position)) {
+            mPos = -1;
+            return false;
+        }
+        mPos = position;
+        return true;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(mPos + 1);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    @Override
+    public void close() {
+        mClosed = true;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        String[] columnNames = getColumnNames();
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return getColumnNames().length;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return getColumnNames()[columnIndex];
+    }
+
+    @Override
+    public int getType(int columnIndex) {
+        return FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        throw new UnsupportedOperationException("getBlob is not supported");
+    }
+
+    protected void checkPosition() {
+        if (mPos == -1 || mPos == getCount()) {
+            throw new IllegalStateException("Index " + mPos + " requested, with a size of " + getCount());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package android.database;
+
+import java.io.Closeable;
+
+/**
+ * JVM stand-in with the members librv uses.
+ */
+public interface Cursor extends Closeable {
+    int FIELD_TYPE_NULL = 0;
+    int FIELD_TYPE_INTEGER = 1;
+    int FIELD_TYPE_FLOAT = 2;
+    int FIELD_TYPE_STRING = 3;
+    int FIELD_TYPE_BLOB = 4;
+
+    int getCount();
+
+    int getPosition();
+
+    boolean moveToPosition(int position);
+
+    boolean moveToFirst();
+
+    boolean moveToNext();
+
+    boolean isClosed();
+
+    void close();
+
+    int getColumnIndex(String columnName);
+
+    int getColumnCount();
+
+    String[] getColumnNames();
+
+    String getColumnName(int columnIndex);
+
+    int getType(int columnIndex);
+
+    boolean isNull(int columnIndex);
+
+    String getString(int columnIndex);
+
+    short getShort(int columnIndex);
+
+    int getInt(int columnIndex);
+
+    long getLong(int columnIndex);
+
+    float getFloat(int columnIndex);
+
+    double getDouble(int columnIndex);
+
+    byte[] getBlob(int columnIndex);
+}
@@ -0,0 +1,23 @@
+package android.os;
+
+/**
+ * JVM stand-in, a post from the main thread runs at once since there is no message loop,
+ * a post from another thread waits for {@link Looper#idleMain()}.
+ */
+public class Handler {
+    public Handler(Looper looper) {
+    }
+
+    public final boolean post(Runnable runnable) {
+        Looper.post(runnable);
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable runnable, long delayMillis) {
+        Looper.post(runnable);
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable runnable) {
+    }
+}
@@ -0,0 +1,42 @@
+package android.os;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * JVM stand-in, the thread which first uses it is the main thread.
+ * Posts from other threads wait in a queue until {@link #idleMain()} runs them on the main thread.
+ */
+public final class Looper {
+    private static final Looper MAIN_LOOPER = new Looper();
+    private static final Thread MAIN_THREAD = Thread.currentThread();
+    private static final ConcurrentLinkedQueue<Runnable> PENDING = new ConcurrentLinkedQueue<>();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN_LOOPER;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == MAIN_THREAD ? MAIN_LOOPER : null;
+    }
+
+    /**
+     * Stand-in only, run the posts made from other threads, like the idle() of a test looper.
+     */
+    public static void idleMain() {
+        Runnable runnable;
+        while ((runnable = PENDING.poll()) != null) {
+            runnable.run();
+        }
+    }
+
+    static void post(Runnable runnable) {
+        if (Thread.currentThread() == MAIN_THREAD) {
+            runnable.run();
+        } else {
+            PENDING.add(runnable);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * JVM stand-in backed by System.nanoTime.
+ */
+public final class SystemClock {
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1000000L;
+    }
+}
@@ -0,0 +1,40 @@
+package android.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JVM stand-in counting every entry as 1, like the framework class without sizeOf.
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V> mMap;
+
+    public LruCache(final int maxSize) {
+        mMap = new LinkedHashMap<K, V>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public final V get(K key) {
+        return mMap.get(key);
+    }
+
+    public final V put(K key, V value) {
+        return mMap.put(key, value);
+    }
+
+    public final V remove(K key) {
+        return mMap.remove(key);
+    }
+
+    public final void evictAll() {
+        mMap.clear();
+    }
+
+    public final int size() {
+        return mMap.size();
+    }
+}
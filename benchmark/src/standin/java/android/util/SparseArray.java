@@ -0,0 +1,89 @@
+package android.util;
+
+import java.util.Arrays;
+
+/**
+ * JVM stand-in with the same sorted key array and binary search as the framework class.
+ */
+@SuppressWarnings("unchecked")
+public class SparseArray<E> {
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    public SparseArray() {
+        this(10);
+    }
+
+    public SparseArray(int initialCapacity) {
+        mKeys = new int[Math.max(1, initialCapacity)];
+        mValues = new Object[Math.max(1, initialCapacity)];
+    }
+
+    public E get(int key) {
+        return get(key, null);
+    }
+
+    public E get(int key, E valueIfKeyNotFound) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return i >= 0 ? (E) mValues[i] : valueIfKeyNotFound;
+    }
+
+    public void put(int key, E value) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (i >= 0) {
+            mValues[i] = value;
+            return;
+        }
+        i = ~i;
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        System.arraycopy(mKeys, i, mKeys, i + 1, mSize - i);
+        System.arraycopy(mValues, i, mValues, i + 1, mSize - i);
+        mKeys[i] = key;
+        mValues[i] = value;
+        mSize++;
+    }
+
+    public void remove(int key) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (i >= 0) {
+            removeAt(i);
+        }
+    }
+
+    public void delete(int key) {
+        remove(key);
+    }
+
+    public void removeAt(int index) {
+        System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        mValues[mSize] = null;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    public E valueAt(int index) {
+        return (E) mValues[index];
+    }
+
+    public int indexOfKey(int key) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return i >= 0 ? i : -1;
+    }
+
+    public void clear() {
+        Arrays.fill(mValues, 0, mSize, null);
+        mSize = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package android.util;
+
+import java.util.Arrays;
+
+/**
+ * JVM stand-in with the same sorted key array and binary search as the framework class.
+ */
+public class SparseBooleanArray {
+    private int[] mKeys = new int[10];
+    private boolean[] mValues = new boolean[10];
+    private int mSize;
+
+    public boolean get(int key) {
+        return get(key, false);
+    }
+
+    public boolean get(int key, boolean valueIfKeyNotFound) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return i >= 0 ? mValues[i] : valueIfKeyNotFound;
+    }
+
+    public void put(int key, boolean value) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (i >= 0) {
+            mValues[i] = value;
+            return;
+        }
+        i = ~i;
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        System.arraycopy(mKeys, i, mKeys, i + 1, mSize - i);
+        System.arraycopy(mValues, i, mValues, i + 1, mSize - i);
+        mKeys[i] = key;
+        mValues[i] = value;
+        mSize++;
+    }
+
+    public void delete(int key) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (i >= 0) {
+            System.arraycopy(mKeys, i + 1, mKeys, i, mSize - i - 1);
+            System.arraycopy(mValues, i + 1, mValues, i, mSize - i - 1);
+            mSize--;
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    public boolean valueAt(int index) {
+        return mValues[index];
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+}
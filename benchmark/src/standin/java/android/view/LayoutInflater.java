@@ -0,0 +1,18 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in, the benchmarks neither create holders nor pre-inflate.
+ */
+public abstract class LayoutInflater {
+    public static LayoutInflater from(Context context) {
+        throw new UnsupportedOperationException("Inflation is not supported on the JVM");
+    }
+
+    public abstract LayoutInflater cloneInContext(Context newContext);
+
+    public View inflate(int resource, ViewGroup root, boolean attachToRoot) {
+        throw new UnsupportedOperationException("Inflation is not supported on the JVM");
+    }
+}
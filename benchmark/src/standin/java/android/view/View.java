@@ -0,0 +1,51 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in, views are never created by the benchmarks.
+ */
+public class View {
+    public static final int NO_ID = -1;
+    public static final int VISIBLE = 0;
+    private final Context mContext;
+    private ViewGroup.LayoutParams mLayoutParams;
+
+    public interface OnClickListener {
+        void onClick(View v);
+    }
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public final Context getContext() {
+        return mContext;
+    }
+
+    public <T extends View> T findViewById(int id) {
+        return null;
+    }
+
+    public void setOnClickListener(OnClickListener listener) {
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return mLayoutParams;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        mLayoutParams = params;
+    }
+
+    public boolean post(Runnable action) {
+        return true;
+    }
+
+    public boolean removeCallbacks(Runnable action) {
+        return true;
+    }
+
+    public void postOnAnimation(Runnable action) {
+    }
+}
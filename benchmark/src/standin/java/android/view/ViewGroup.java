@@ -0,0 +1,15 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in, see {@link View}.
+ */
+public class ViewGroup extends View {
+    public ViewGroup(Context context) {
+        super(context);
+    }
+
+    public static class LayoutParams {
+    }
+}
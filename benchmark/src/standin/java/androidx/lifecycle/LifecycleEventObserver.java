@@ -0,0 +1,5 @@
+package androidx.lifecycle;
+
+public interface LifecycleEventObserver extends LifecycleObserver {
+    void onStateChanged(LifecycleOwner source, Lifecycle.Event event);
+}
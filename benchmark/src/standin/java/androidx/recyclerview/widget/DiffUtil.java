@@ -0,0 +1,39 @@
+package androidx.recyclerview.widget;
+
+/**
+ * JVM stand-in, DataManager.setDataAsync is not covered by the benchmarks.
+ */
+public class DiffUtil {
+    private DiffUtil() {
+    }
+
+    public static DiffResult calculateDiff(Callback callback) {
+        return calculateDiff(callback, true);
+    }
+
+    public static DiffResult calculateDiff(Callback callback, boolean detectMoves) {
+        throw new UnsupportedOperationException("DiffUtil is not supported on the JVM");
+    }
+
+    public abstract static class Callback {
+        public abstract int getOldListSize();
+
+        public abstract int getNewListSize();
+
+        public abstract boolean areItemsTheSame(int oldItemPosition, int newItemPosition);
+
+        public abstract boolean areContentsTheSame(int oldItemPosition, int newItemPosition);
+
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return null;
+        }
+    }
+
+    public static class DiffResult {
+        public void dispatchUpdatesTo(RecyclerView.Adapter adapter) {
+        }
+
+        public void dispatchUpdatesTo(ListUpdateCallback updateCallback) {
+        }
+    }
+}
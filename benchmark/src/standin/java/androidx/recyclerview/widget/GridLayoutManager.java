@@ -0,0 +1,41 @@
+package androidx.recyclerview.widget;
+
+/**
+ * JVM stand-in, the benchmarks lay out nothing so the span size lookup is only set.
+ */
+public class GridLayoutManager extends LinearLayoutManager {
+    private final int mSpanCount;
+    private SpanSizeLookup mSpanSizeLookup;
+
+    public GridLayoutManager(int spanCount) {
+        mSpanCount = spanCount;
+    }
+
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    public SpanSizeLookup getSpanSizeLookup() {
+        return mSpanSizeLookup;
+    }
+
+    public void setSpanSizeLookup(SpanSizeLookup spanSizeLookup) {
+        mSpanSizeLookup = spanSizeLookup;
+    }
+
+    public abstract static class SpanSizeLookup {
+        public abstract int getSpanSize(int position);
+
+        public void setSpanIndexCacheEnabled(boolean cacheSpanIndices) {
+        }
+
+        public void setSpanGroupIndexCacheEnabled(boolean cacheSpanGroupIndices) {
+        }
+
+        public void invalidateSpanIndexCache() {
+        }
+
+        public void invalidateSpanGroupIndexCache() {
+        }
+    }
+}
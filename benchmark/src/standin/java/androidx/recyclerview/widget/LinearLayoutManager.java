@@ -0,0 +1,7 @@
+package androidx.recyclerview.widget;
+
+/**
+ * JVM stand-in, only checked with instanceof by the data path.
+ */
+public class LinearLayoutManager extends RecyclerView.LayoutManager {
+}
@@ -0,0 +1,11 @@
+package androidx.recyclerview.widget;
+
+public interface ListUpdateCallback {
+    void onInserted(int position, int count);
+
+    void onRemoved(int position, int count);
+
+    void onMoved(int fromPosition, int toPosition);
+
+    void onChanged(int position, int count, Object payload);
+}
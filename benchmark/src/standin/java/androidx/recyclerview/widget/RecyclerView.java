@@ -0,0 +1,266 @@
+package androidx.recyclerview.widget;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM stand-in with a working adapter observable, so the notifications of DataManager reach the registered
+ * AdapterDataObservers like on a device. Nothing is laid out, the LayoutManager is only queried.
+ */
+public class RecyclerView extends ViewGroup {
+    public static final long NO_ID = -1;
+    public static final int NO_POSITION = -1;
+    public static final int SCROLL_STATE_IDLE = 0;
+    public static final int SCROLL_STATE_DRAGGING = 1;
+    public static final int SCROLL_STATE_SETTLING = 2;
+    private final RecycledViewPool mRecycledViewPool = new RecycledViewPool();
+    private LayoutManager mLayoutManager;
+    private Adapter mAdapter;
+
+    public RecyclerView(Context context) {
+        super(context);
+    }
+
+    public LayoutManager getLayoutManager() {
+        return mLayoutManager;
+    }
+
+    public void setLayoutManager(LayoutManager layoutManager) {
+        mLayoutManager = layoutManager;
+    }
+
+    public Adapter getAdapter() {
+        return mAdapter;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setAdapter(Adapter adapter) {
+        if (mAdapter != null) {
+            mAdapter.onDetachedFromRecyclerView(this);
+        }
+        mAdapter = adapter;
+        if (adapter != null) {
+            adapter.onAttachedToRecyclerView(this);
+        }
+    }
+
+    public RecycledViewPool getRecycledViewPool() {
+        return mRecycledViewPool;
+    }
+
+    public void addOnScrollListener(OnScrollListener listener) {
+    }
+
+    public void removeOnScrollListener(OnScrollListener listener) {
+    }
+
+    public abstract static class OnScrollListener {
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        }
+
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        }
+    }
+
+    public static class RecycledViewPool {
+        public void setMaxRecycledViews(int viewType, int max) {
+        }
+
+        public void putRecycledView(ViewHolder scrap) {
+        }
+
+        public int getRecycledViewCount(int viewType) {
+            return 0;
+        }
+    }
+
+    public abstract static class LayoutManager {
+        public int getChildCount() {
+            return 0;
+        }
+
+        public View getChildAt(int index) {
+            return null;
+        }
+
+        public int getPosition(View view) {
+            return NO_POSITION;
+        }
+
+        public boolean canScrollVertically() {
+            return false;
+        }
+
+        public int getDecoratedTop(View child) {
+            return 0;
+        }
+
+        public int getDecoratedBottom(View child) {
+            return 0;
+        }
+
+        public int getDecoratedLeft(View child) {
+            return 0;
+        }
+
+        public int getDecoratedRight(View child) {
+            return 0;
+        }
+    }
+
+    public abstract static class ViewHolder {
+        public final View itemView;
+        int mItemViewType;
+
+        public ViewHolder(View itemView) {
+            this.itemView = itemView;
+        }
+
+        public final int getItemViewType() {
+            return mItemViewType;
+        }
+    }
+
+    public abstract static class AdapterDataObserver {
+        public void onChanged() {
+        }
+
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+        }
+
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+        }
+
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+        }
+
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        }
+    }
+
+    public abstract static class Adapter<VH extends ViewHolder> {
+        private final List<AdapterDataObserver> mObservers = new ArrayList<>();
+        private boolean mHasStableIds;
+
+        public abstract VH onCreateViewHolder(ViewGroup parent, int viewType);
+
+        public abstract void onBindViewHolder(VH holder, int position);
+
+        public void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+            onBindViewHolder(holder, position);
+        }
+
+        public abstract int getItemCount();
+
+        public int getItemViewType(int position) {
+            return 0;
+        }
+
+        public long getItemId(int position) {
+            return NO_ID;
+        }
+
+        public void setHasStableIds(boolean hasStableIds) {
+            if (!mObservers.isEmpty()) {
+                throw new IllegalStateException("Cannot change whether this adapter has stable IDs while the adapter has registered observers.");
+            }
+            mHasStableIds = hasStableIds;
+        }
+
+        public final boolean hasStableIds() {
+            return mHasStableIds;
+        }
+
+        public final boolean hasObservers() {
+            return !mObservers.isEmpty();
+        }
+
+        public final VH createViewHolder(ViewGroup parent, int viewType) {
+            VH holder = onCreateViewHolder(parent, viewType);
+            holder.mItemViewType = viewType;
+            return holder;
+        }
+
+        public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        }
+
+        public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        }
+
+        public void onViewAttachedToWindow(VH holder) {
+        }
+
+        public void onViewDetachedFromWindow(VH holder) {
+        }
+
+        public void registerAdapterDataObserver(AdapterDataObserver observer) {
+            if (mObservers.contains(observer)) {
+                throw new IllegalStateException("Observer " + observer + " is already registered.");
+            }
+            mObservers.add(observer);
+        }
+
+        public void unregisterAdapterDataObserver(AdapterDataObserver observer) {
+            mObservers.remove(observer);
+        }
+
+        public final void notifyDataSetChanged() {
+            // Backwards like the framework observable.
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onChanged();
+            }
+        }
+
+        public final void notifyItemChanged(int position) {
+            notifyItemRangeChanged(position, 1, null);
+        }
+
+        public final void notifyItemChanged(int position, Object payload) {
+            notifyItemRangeChanged(position, 1, payload);
+        }
+
+        public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+            notifyItemRangeChanged(positionStart, itemCount, null);
+        }
+
+        public final void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeChanged(positionStart, itemCount, payload);
+            }
+        }
+
+        public final void notifyItemInserted(int position) {
+            notifyItemRangeInserted(position, 1);
+        }
+
+        public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeInserted(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemRemoved(int position) {
+            notifyItemRangeRemoved(position, 1);
+        }
+
+        public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeRemoved(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemMoved(int fromPosition, int toPosition) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeMoved(fromPosition, toPosition, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package androidx.recyclerview.widget;
+
+import android.view.ViewGroup;
+
+/**
+ * JVM stand-in, only checked with instanceof by the data path.
+ */
+public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager {
+    public static class LayoutParams extends ViewGroup.LayoutParams {
+        public void setFullSpan(boolean fullSpan) {
+        }
+    }
+}
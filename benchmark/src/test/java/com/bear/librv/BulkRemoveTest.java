@@ -0,0 +1,113 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+
+import android.database.Cursor;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * remove(Object...), remove(List) and removeIf, with and without a KeyExtractor.
+ */
+public class BulkRemoveTest {
+    private VHAdapter mAdapter;
+    private DataManager mDataManager;
+
+    @Before
+    public void setUp() {
+        mAdapter = new VHAdapter(null);
+        mAdapter.register(new TestBridge(), String.class, Name.class);
+        mAdapter.register(new TestBridge(), Cursor.class);
+        mDataManager = mAdapter.getDataManager();
+    }
+
+    @Test
+    public void everyArgumentRemovesOneMatch() {
+        mDataManager.setData(list("a", "b", "a", "c", "b"));
+        mDataManager.remove("a", "c");
+        assertEquals(list("b", "a", "b"), mDataManager.getData());
+        mDataManager.remove("b", "b", "b");
+        assertEquals(list("a"), mDataManager.getData());
+    }
+
+    @Test
+    public void everyArgumentRemovesOneKeyMatch() {
+        mDataManager.setKeyExtractor(new DataManager.KeyExtractor() {
+            @Override
+            public Object getKey(Object data) {
+                return data instanceof Name ? ((Name) data).mName : null;
+            }
+        });
+        mDataManager.setData(list(new Name("a"), "x", new Name("b"), new Name("a")));
+        mDataManager.remove(new Name("a"), "x", new Name("a"));
+        assertEquals(1, mDataManager.size());
+        assertEquals("b", ((Name) mDataManager.get(0)).mName);
+    }
+
+    @Test
+    public void dataWithoutHashCodeIsMatchedByEquals() {
+        mDataManager.setData(list(new Name("a"), new Name("b"), new Name("c")));
+        mDataManager.remove(new Name("c"), new Name("a"));
+        assertEquals(1, mDataManager.size());
+        assertEquals("b", ((Name) mDataManager.get(0)).mName);
+    }
+
+    @Test
+    public void cursorIsRemovedWholeByOneOrManyArguments() {
+        TestCursor cursor = new TestCursor("c", 3);
+        mDataManager.setData(list("a", "b"));
+        mDataManager.addCursor(1, cursor);
+        mDataManager.remove(cursor);
+        assertEquals(list("a", "b"), mDataManager.getData());
+        mDataManager.addCursor(1, cursor);
+        mDataManager.remove(cursor, "b");
+        assertEquals(list("a"), mDataManager.getData());
+    }
+
+    @Test
+    public void removeIfCoalescesRanges() {
+        mDataManager.setData(list("a", "x", "x", "b", "x", "c"));
+        final List<int[]> removed = new ArrayList<>();
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                removed.add(new int[]{positionStart, itemCount});
+            }
+        });
+        mDataManager.removeIf(new DataManager.Filter() {
+            @Override
+            public boolean accept(Object data) {
+                return "x".equals(data);
+            }
+        });
+        assertEquals(list("a", "b", "c"), mDataManager.getData());
+        assertEquals(2, removed.size());
+        assertEquals("1+2", removed.get(0)[0] + "+" + removed.get(0)[1]);
+        assertEquals("2+1", removed.get(1)[0] + "+" + removed.get(1)[1]);
+    }
+
+    private static List<Object> list(Object... datas) {
+        return new ArrayList<>(Arrays.asList(datas));
+    }
+
+    // Overrides equals but not hashCode, which was enough for remove before it was done in one pass.
+    private static final class Name {
+        private final String mName;
+
+        Name(String name) {
+            mName = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Name && ((Name) o).mName.equals(mName);
+        }
+    }
+}
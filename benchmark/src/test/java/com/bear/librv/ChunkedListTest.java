@@ -0,0 +1,65 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random edits of a ChunkedList against an ArrayList, with bulk inserts larger than a chunk.
+ */
+public class ChunkedListTest {
+    @Test
+    public void editsMatchArrayList() {
+        Random random = new Random(21);
+        for (int round = 0; round < 30; round++) {
+            ChunkedList<Integer> list = new ChunkedList<>();
+            List<Integer> model = new ArrayList<>();
+            int nextValue = 0;
+            for (int step = 0; step < 400; step++) {
+                int size = model.size();
+                int op = size == 0 ? random.nextInt(2) : random.nextInt(7);
+                if (op == 0) {
+                    int index = random.nextInt(size + 1);
+                    list.add(index, nextValue);
+                    model.add(index, nextValue++);
+                } else if (op == 1) {
+                    int index = random.nextInt(size + 1);
+                    List<Integer> values = new ArrayList<>();
+                    for (int i = random.nextInt(1500); i > 0; i--) {
+                        values.add(nextValue++);
+                    }
+                    list.addAll(index, values);
+                    model.addAll(index, values);
+                } else if (op == 2) {
+                    int index = random.nextInt(size);
+                    assertEquals(model.remove(index), list.remove(index));
+                } else if (op == 3) {
+                    int fromIndex = random.nextInt(size);
+                    int toIndex = fromIndex + random.nextInt(Math.min(1200, size - fromIndex) + 1);
+                    list.subList(fromIndex, toIndex).clear();
+                    model.subList(fromIndex, toIndex).clear();
+                } else if (op == 4) {
+                    int index = random.nextInt(size);
+                    assertEquals(model.set(index, nextValue), list.set(index, nextValue));
+                    nextValue++;
+                } else if (op == 5) {
+                    int index = random.nextInt(size);
+                    assertEquals(model.get(index), list.get(index));
+                } else if (random.nextInt(10) == 0) {
+                    list.clear();
+                    model.clear();
+                } else {
+                    List<Integer> values = Collections.nCopies(random.nextInt(5), -1);
+                    list.addAll(values);
+                    model.addAll(values);
+                }
+                assertEquals("round " + round + " step " + step, model, list);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+
+import android.database.Cursor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The mapped rows of a Cursor added with a CursorRowMapper survive the operations which rebuild the segment index.
+ */
+public class CursorRowCacheTest {
+    private DataManager mDataManager;
+    private TestCursor mCursor;
+
+    @Before
+    public void setUp() {
+        VHAdapter adapter = new VHAdapter(null);
+        adapter.register(new TestBridge(), Integer.class);
+        adapter.register(new TestBridge(), Cursor.class);
+        adapter.register(new TestBridge(), String.class);
+        mDataManager = adapter.getDataManager();
+        mDataManager.setData(new ArrayList<Object>(Arrays.asList(0, 1, 2, 3)));
+        mCursor = new TestCursor("c", 3);
+        mDataManager.addCursor(2, mCursor, new DataManager.CursorRowMapper() {
+            @Override
+            public Object map(Cursor cursor) {
+                return "mapped " + cursor.getString(0);
+            }
+        });
+    }
+
+    @Test
+    public void bulkRemoveKeepsMappedRows() {
+        mDataManager.remove((Object) 1, (Object) 3);
+        assertRows(Arrays.<Object>asList(0, "mapped c:0", "mapped c:1", "mapped c:2", 2));
+    }
+
+    @Test
+    public void removeIfKeepsMappedRows() {
+        mDataManager.removeIf(new DataManager.Filter() {
+            @Override
+            public boolean accept(Object data) {
+                return data instanceof Integer && (Integer) data % 2 == 0;
+            }
+        });
+        assertRows(Arrays.<Object>asList(1, "mapped c:0", "mapped c:1", "mapped c:2", 3));
+    }
+
+    private void assertRows(List<Object> expected) {
+        List<Object> rows = new ArrayList<>();
+        for (int i = 0; i < mDataManager.size(); i++) {
+            rows.add(mDataManager.get(i));
+        }
+        assertEquals(expected, rows);
+    }
+}
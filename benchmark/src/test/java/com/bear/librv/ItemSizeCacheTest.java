@@ -0,0 +1,91 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random measures and adapter notifications of an ItemSizeCache against sums over a plain size list.
+ */
+public class ItemSizeCacheTest {
+    @Test
+    public void queriesMatchNaiveSums() {
+        Random random = new Random(34);
+        for (int round = 0; round < 100; round++) {
+            ItemSizeCache cache = new ItemSizeCache();
+            // 0 means not measured, like the cache.
+            List<Integer> sizes = new ArrayList<>();
+            int itemCount = random.nextInt(50);
+            cache.reset(itemCount);
+            sizes.addAll(Collections.nCopies(itemCount, 0));
+            for (int step = 0; step < 200; step++) {
+                int count = sizes.size();
+                int op = count == 0 ? 1 : random.nextInt(6);
+                if (op == 0) {
+                    int position = random.nextInt(count);
+                    int size = 1 + random.nextInt(100);
+                    cache.put(position, size);
+                    sizes.set(position, size);
+                } else if (op == 1) {
+                    int positionStart = random.nextInt(count + 1);
+                    int insertCount = 1 + random.nextInt(5);
+                    cache.onItemRangeInserted(positionStart, insertCount);
+                    sizes.addAll(positionStart, Collections.nCopies(insertCount, 0));
+                } else if (op == 2) {
+                    int positionStart = random.nextInt(count);
+                    int removeCount = 1 + random.nextInt(Math.min(5, count - positionStart));
+                    cache.onItemRangeRemoved(positionStart, removeCount);
+                    sizes.subList(positionStart, positionStart + removeCount).clear();
+                } else if (op == 3) {
+                    int fromPosition = random.nextInt(count);
+                    int toPosition = random.nextInt(count);
+                    cache.onItemRangeMoved(fromPosition, toPosition, 1);
+                    sizes.add(toPosition, sizes.remove(fromPosition));
+                } else if (op == 4) {
+                    // A size which is not positive is ignored.
+                    cache.put(random.nextInt(count), 0);
+                } else {
+                    check(cache, sizes, random, "round " + round + " step " + step);
+                }
+            }
+            check(cache, sizes, random, "round " + round);
+        }
+    }
+
+    private static void check(ItemSizeCache cache, List<Integer> sizes, Random random, String message) {
+        int count = sizes.size();
+        assertEquals(message, count, cache.itemCount());
+        long measuredTotal = 0;
+        int measuredCount = 0;
+        for (int size : sizes) {
+            if (size > 0) {
+                measuredTotal += size;
+                measuredCount++;
+            }
+        }
+        int average = measuredCount > 0 ? (int) (measuredTotal / measuredCount) : 0;
+        assertEquals(message, average, cache.averageSize());
+        long[] prefixes = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            prefixes[i + 1] = prefixes[i] + (sizes.get(i) > 0 ? sizes.get(i) : average);
+        }
+        for (int position = 0; position <= count; position++) {
+            assertEquals(message + " prefix " + position, prefixes[position], cache.prefix(position));
+        }
+        for (int i = 0; i < 20; i++) {
+            long offset = prefixes[count] > 0 ? (long) (random.nextDouble() * (prefixes[count] + 10)) : random.nextInt(10);
+            int expected = 0;
+            for (int position = 1; position < count; position++) {
+                if (prefixes[position] <= offset) {
+                    expected = position;
+                }
+            }
+            assertEquals(message + " positionAt " + offset, expected, cache.positionAt(offset));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random inserts, removes, moves and updates through a keyed DataManager, checked against an ArrayList.
+ * The runs are long enough to fill the shift log of KeyIndex many times.
+ */
+public class KeyIndexTest {
+    private static final int KEY_MOD = 7;
+
+    private int mNextId;
+    private int mKeyCalls;
+
+    @Test
+    public void indexOfKeyMatchesModel() {
+        run(false);
+    }
+
+    @Test
+    public void indexOfKeyMatchesModelWithChunkedStorage() {
+        run(true);
+    }
+
+    @Test
+    public void duplicateKeysFindOneOfTheirData() {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            DataManager dataManager = newDataManager(false, true);
+            List<Object> model = new ArrayList<>();
+            for (int step = 0; step < 300; step++) {
+                randomOp(dataManager, model, random, 5);
+                assertEquals("round " + round + " step " + step, model, new ArrayList<Object>(dataManager.getData()));
+                for (int key = 0; key < KEY_MOD; key++) {
+                    int index = dataManager.indexOfKey(key);
+                    if (index < 0) {
+                        for (Object data : model) {
+                            assertTrue("round " + round + " step " + step, (Integer) data % KEY_MOD != key);
+                        }
+                    } else {
+                        assertEquals("round " + round + " step " + step, key, (Integer) model.get(index) % KEY_MOD);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void missDoesNotScan() {
+        Random random = new Random(3);
+        DataManager dataManager = newDataManager(false, false);
+        List<Object> model = new ArrayList<>();
+        for (int step = 0; step < 2000; step++) {
+            randomOp(dataManager, model, random, 6);
+            mKeyCalls = 0;
+            assertEquals(-1, dataManager.indexOfKey(-1));
+            assertEquals(0, mKeyCalls);
+        }
+    }
+
+    private DataManager newDataManager(boolean chunked, final boolean duplicateKeys) {
+        VHAdapter adapter = new VHAdapter(null);
+        adapter.register(new TestBridge(), Integer.class);
+        DataManager dataManager = adapter.getDataManager();
+        dataManager.setChunkedStorage(chunked);
+        dataManager.setKeyExtractor(new DataManager.KeyExtractor() {
+            @Override
+            public Object getKey(Object data) {
+                mKeyCalls++;
+                return duplicateKeys ? (Integer) data % KEY_MOD : data;
+            }
+        });
+        return dataManager;
+    }
+
+    private void run(boolean chunked) {
+        Random random = new Random(8);
+        for (int round = 0; round < 50; round++) {
+            DataManager dataManager = newDataManager(chunked, false);
+            List<Object> model = new ArrayList<>();
+            for (int step = 0; step < 300; step++) {
+                randomOp(dataManager, model, random, 6);
+                assertEquals("round " + round + " step " + step, model, new ArrayList<Object>(dataManager.getData()));
+                for (int i = 0; i < model.size(); i++) {
+                    assertEquals("round " + round + " step " + step, i, dataManager.indexOfKey(model.get(i)));
+                }
+                assertEquals(-1, dataManager.indexOfKey(-1));
+            }
+        }
+    }
+
+    // Remove by data is op 5, it is left out with duplicate keys because it may find another data with the key.
+    private void randomOp(DataManager dataManager, List<Object> model, Random random, int opCount) {
+        int size = model.size();
+        int op = size == 0 ? 0 : random.nextInt(opCount);
+        if (op == 0) {
+            int index = random.nextInt(size + 1);
+            List<Object> dataList = new ArrayList<>();
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                dataList.add(mNextId++);
+            }
+            dataManager.add(index, dataList);
+            model.addAll(index, dataList);
+        } else if (op == 1) {
+            int index = random.nextInt(size);
+            int num = 1 + random.nextInt(Math.min(3, size - index));
+            dataManager.remove(index, num);
+            model.subList(index, index + num).clear();
+        } else if (op == 2) {
+            int fromPos = random.nextInt(size);
+            int toPos = random.nextInt(size);
+            dataManager.move(fromPos, toPos);
+            model.add(toPos, model.remove(fromPos));
+        } else if (op == 3) {
+            int count = 1 + random.nextInt(Math.min(4, size));
+            int fromPos = random.nextInt(size - count + 1);
+            int toPos = random.nextInt(size - count + 1);
+            dataManager.moveRange(fromPos, count, toPos);
+            List<Object> moved = new ArrayList<>(model.subList(fromPos, fromPos + count));
+            model.subList(fromPos, fromPos + count).clear();
+            model.addAll(toPos, moved);
+        } else if (op == 4) {
+            int index = random.nextInt(size);
+            Object data = mNextId++;
+            dataManager.update(index, data);
+            model.set(index, data);
+        } else {
+            Object data = model.get(random.nextInt(size));
+            dataManager.remove(data);
+            model.remove(data);
+        }
+    }
+}
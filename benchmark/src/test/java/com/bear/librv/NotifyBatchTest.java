@@ -0,0 +1,137 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random batches of DataManager operations, the merged notifications are replayed onto the rows before the batch
+ * and must give the rows after it, every row which is not inserted or changed keeps its old value.
+ */
+public class NotifyBatchTest {
+    // Replaces the rows which the notifications insert or change.
+    private static final String UNKNOWN = "?";
+
+    private int mNextId;
+
+    @Test
+    public void replayedNotificationsMatchData() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            VHAdapter adapter = new VHAdapter(null);
+            adapter.register(new TestBridge(), Integer.class);
+            adapter.register(new TestBridge(), Cursor.class);
+            DataManager dataManager = adapter.getDataManager();
+            for (int step = 0; step < 50; step++) {
+                ReplayObserver observer = new ReplayObserver(rows(dataManager));
+                adapter.registerAdapterDataObserver(observer);
+                dataManager.beginBatch();
+                for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                    randomOp(dataManager, random);
+                }
+                dataManager.endBatch();
+                adapter.unregisterAdapterDataObserver(observer);
+                List<String> rows = rows(dataManager);
+                if (observer.mDataSetChanged) {
+                    continue;
+                }
+                String message = "round " + round + " step " + step;
+                assertEquals(message, rows.size(), observer.mRows.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    String row = observer.mRows.get(i);
+                    assertTrue(message + " at " + i, row.equals(UNKNOWN) || row.equals(rows.get(i)));
+                }
+            }
+        }
+    }
+
+    private void randomOp(DataManager dataManager, Random random) {
+        int size = dataManager.size();
+        int op = size == 0 ? random.nextInt(2) : random.nextInt(6);
+        if (op == 0) {
+            dataManager.add(random.nextInt(size + 1), mNextId++, mNextId++);
+        } else if (op == 1) {
+            dataManager.addCursor(random.nextInt(size + 1), new TestCursor("c" + mNextId++, 1 + random.nextInt(4)));
+        } else if (op == 2) {
+            int index = random.nextInt(size);
+            dataManager.remove(index, 1 + random.nextInt(Math.min(3, size - index)));
+        } else if (op == 3) {
+            dataManager.update(random.nextInt(size), mNextId++);
+        } else if (op == 4) {
+            dataManager.update(random.nextInt(size));
+        } else {
+            dataManager.move(random.nextInt(size), random.nextInt(size));
+        }
+    }
+
+    private static List<String> rows(DataManager dataManager) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < dataManager.size(); i++) {
+            Object data = dataManager.get(i);
+            rows.add(data instanceof TestCursor ? ((TestCursor) data).getString(0) : String.valueOf(data));
+        }
+        return rows;
+    }
+
+    private static final class ReplayObserver extends RecyclerView.AdapterDataObserver {
+        private final List<String> mRows;
+        private boolean mDataSetChanged;
+
+        ReplayObserver(List<String> rows) {
+            mRows = new ArrayList<>(rows);
+        }
+
+        @Override
+        public void onChanged() {
+            mDataSetChanged = true;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            onItemRangeChanged(positionStart, itemCount, null);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            checkRange(positionStart, itemCount);
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                mRows.set(i, UNKNOWN);
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            assertTrue(itemCount > 0 && positionStart >= 0 && positionStart <= mRows.size());
+            for (int i = 0; i < itemCount; i++) {
+                mRows.add(positionStart, UNKNOWN);
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            checkRange(positionStart, itemCount);
+            mRows.subList(positionStart, positionStart + itemCount).clear();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            assertEquals(1, itemCount);
+            checkRange(fromPosition, 1);
+            checkRange(toPosition, 1);
+            mRows.add(toPosition, mRows.remove(fromPosition));
+        }
+
+        private void checkRange(int positionStart, int itemCount) {
+            assertTrue(itemCount > 0 && positionStart >= 0 && positionStart + itemCount <= mRows.size());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Merging Notify keeps every slot with the part it was set for.
+ */
+public class NotifyTest {
+    private static final int TYPE = 1;
+    private static final int LIKE = 1;
+    private static final int PROGRESS = 1 << 1;
+
+    @Test
+    public void slotsOfDifferentPartsAreKept() {
+        Notify merged = Notify.merge(new Notify(TYPE).withMask(LIKE).withLong(12L),
+                new Notify(TYPE).withMask(PROGRESS).withFloat(0.5F));
+        assertEquals(LIKE | PROGRESS, merged.mMask);
+        assertEquals(12L, merged.mLong);
+        assertTrue(merged.mFloat == 0.5F);
+        // The merged Notify keeps the owners of its slots.
+        merged = Notify.merge(merged, new Notify(TYPE).withMask(PROGRESS).withFloat(0.75F));
+        assertEquals(12L, merged.mLong);
+        assertTrue(merged.mFloat == 0.75F);
+    }
+
+    @Test
+    public void newerSlotOfSamePartWins() {
+        Notify merged = Notify.merge(new Notify(TYPE).withMask(LIKE).withLong(12L),
+                new Notify(TYPE).withMask(LIKE).withLong(13L));
+        assertEquals(13L, merged.mLong);
+    }
+
+    @Test
+    public void sameSlotOfDifferentPartsFallsBackToFullBind() {
+        assertEquals(null, Notify.merge(new Notify(TYPE).withMask(LIKE).withLong(12L),
+                new Notify(TYPE).withMask(PROGRESS).withLong(50L)));
+        Notify older = new Notify(TYPE).withMask(LIKE).withLong(12L);
+        older.mergeFrom(new Notify(TYPE).withMask(PROGRESS).withFloat(0.5F));
+        assertEquals(false, older.mergeFrom(new Notify(TYPE).withMask(PROGRESS).withLong(50L)));
+    }
+
+    @Test
+    public void differentTypesDoNotMerge() {
+        assertEquals(null, Notify.merge(new Notify(TYPE), new Notify(TYPE + 1)));
+    }
+}
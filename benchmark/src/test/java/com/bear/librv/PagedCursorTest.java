@@ -0,0 +1,145 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.os.Looper;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Failed, short and reloaded pages of a PagedCursor. The pages load on the background executor of RvThreads,
+ * their results are delivered when the test idles the main looper.
+ */
+public class PagedCursorTest {
+    private static final String[] COLUMN_NAMES = {"_id"};
+    private static final long TIMEOUT_MS = 5000;
+
+    @Test
+    public void failedPageIsOnlyLoadedAgainOnRetry() throws InterruptedException {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        final PagedCursor cursor = new PagedCursor(10, COLUMN_NAMES, new PagedCursor.PageLoader() {
+            @Override
+            public Cursor loadPage(int offset, int limit) {
+                loadCount.incrementAndGet();
+                return failing.get() ? null : new TestCursor("p", limit);
+            }
+        });
+        cursor.setPageSize(10);
+        cursor.moveToPosition(0);
+        await(new Condition() {
+            @Override
+            public boolean met() {
+                cursor.moveToPosition(0);
+                return cursor.isLoadFailed();
+            }
+        });
+        for (int i = 0; i < 20; i++) {
+            cursor.moveToPosition(i % 10);
+        }
+        Thread.sleep(50);
+        Looper.idleMain();
+        assertEquals(1, loadCount.get());
+        assertFalse(cursor.isLoaded(0));
+
+        failing.set(false);
+        cursor.retryFailedPages();
+        cursor.moveToPosition(0);
+        await(new Condition() {
+            @Override
+            public boolean met() {
+                return cursor.isLoaded(0);
+            }
+        });
+        assertEquals(2, loadCount.get());
+        cursor.moveToPosition(0);
+        assertFalse(cursor.isLoadFailed());
+    }
+
+    @Test
+    public void shortPageLoadsMissingRowsAsNulls() throws InterruptedException {
+        final PagedCursor cursor = new PagedCursor(10, COLUMN_NAMES, new PagedCursor.PageLoader() {
+            @Override
+            public Cursor loadPage(int offset, int limit) {
+                return new TestCursor("p", limit - 4);
+            }
+        });
+        cursor.setPageSize(10);
+        cursor.moveToPosition(0);
+        await(new Condition() {
+            @Override
+            public boolean met() {
+                return cursor.isLoaded(0);
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cursor.isLoaded(i));
+        }
+        cursor.moveToPosition(5);
+        assertEquals("p:5", cursor.getString(0));
+        cursor.moveToPosition(6);
+        assertNull(cursor.getString(0));
+        assertTrue(cursor.isNull(0));
+    }
+
+    @Test
+    public void reloadedPageIsMappedAgain() throws InterruptedException {
+        final AtomicInteger version = new AtomicInteger(1);
+        final PagedCursor cursor = new PagedCursor(10, COLUMN_NAMES, new PagedCursor.PageLoader() {
+            @Override
+            public Cursor loadPage(int offset, int limit) {
+                return new TestCursor("v" + version.get() + "_" + offset, limit);
+            }
+        });
+        cursor.setPageSize(1);
+        cursor.setMaxPageCount(2);
+        VHAdapter adapter = new VHAdapter(null);
+        adapter.register(new TestBridge(), Cursor.class);
+        final DataManager dataManager = adapter.getDataManager();
+        dataManager.addCursor(0, cursor, new DataManager.CursorRowMapper() {
+            @Override
+            public Object map(Cursor cursor) {
+                return cursor.getString(0);
+            }
+        });
+        awaitMapped(dataManager, 0);
+        assertEquals("v1_0:0", dataManager.get(0));
+        // Loading pages 5 and 6 evicts pages 0 and 1.
+        awaitMapped(dataManager, 5);
+        version.set(2);
+        awaitMapped(dataManager, 0);
+        assertEquals("v2_0:0", dataManager.get(0));
+    }
+
+    private static void awaitMapped(final DataManager dataManager, final int position) throws InterruptedException {
+        await(new Condition() {
+            @Override
+            public boolean met() {
+                return dataManager.get(position) instanceof String;
+            }
+        });
+    }
+
+    private interface Condition {
+        boolean met();
+    }
+
+    private static void await(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            Looper.idleMain();
+            if (condition.met()) {
+                return;
+            }
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * A source which keeps answering empty pages must not be requested in a loop.
+ */
+public class RvPaginatorTest {
+    private int mLoadCount;
+    private boolean mEmpty = true;
+
+    @Test
+    public void emptyPagesWaitForBind() {
+        VHAdapter adapter = new VHAdapter(null);
+        adapter.register(new TestBridge(), Integer.class);
+        final DataManager dataManager = adapter.getDataManager();
+        dataManager.setData(Arrays.asList(0, 1, 2));
+        final RvPaginator paginator = new RvPaginator(adapter, new RvPaginator.OnLoadListener() {
+            @Override
+            public void onLoad(RvPaginator paginator, int direction) {
+                mLoadCount++;
+                paginator.deliver(direction, mEmpty ? Collections.emptyList() : Arrays.asList(mLoadCount + 100), true);
+            }
+        });
+        paginator.onBind(2);
+        assertEquals(3, mLoadCount);
+        assertEquals(3, dataManager.size());
+
+        paginator.onBind(2);
+        assertEquals(6, mLoadCount);
+
+        mEmpty = false;
+        paginator.onBind(2);
+        assertEquals(7, mLoadCount);
+        assertEquals(4, dataManager.size());
+    }
+}
@@ -0,0 +1,145 @@
+package com.bear.librv;
+
+import static org.junit.Assert.assertEquals;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SegmentIndex against the raw list walked row by row, and the rows of a DataManager with Cursors
+ * against the expanded raw list.
+ */
+public class SegmentIndexTest {
+    private int mNextId;
+
+    @Test
+    public void conversionsMatchRawList() {
+        Random random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            SegmentIndex segmentIndex = new SegmentIndex();
+            List<Object> rawList = new ArrayList<>();
+            for (int step = 0; step < 100; step++) {
+                int rawSize = rawList.size();
+                int op = rawSize == 0 ? random.nextInt(2) : random.nextInt(4);
+                if (op == 0) {
+                    int rawIndex = random.nextInt(rawSize + 1);
+                    int count = 1 + random.nextInt(3);
+                    for (int i = 0; i < count; i++) {
+                        rawList.add(rawIndex, mNextId++);
+                    }
+                    segmentIndex.onInserted(rawIndex, count);
+                } else if (op == 1) {
+                    int rawIndex = random.nextInt(rawSize + 1);
+                    TestCursor cursor = new TestCursor("c" + mNextId++, 1 + random.nextInt(5));
+                    rawList.add(rawIndex, cursor);
+                    segmentIndex.insertCursor(rawIndex, cursor);
+                } else if (op == 2) {
+                    int fromRawIndex = random.nextInt(rawSize);
+                    int toRawIndex = fromRawIndex + 1 + random.nextInt(Math.min(3, rawSize - fromRawIndex));
+                    int positionCount = 0;
+                    for (int i = fromRawIndex; i < toRawIndex; i++) {
+                        positionCount += lengthOf(rawList.get(i));
+                    }
+                    rawList.subList(fromRawIndex, toRawIndex).clear();
+                    segmentIndex.onRemoved(fromRawIndex, toRawIndex, positionCount);
+                } else {
+                    segmentIndex.reset(rawList);
+                }
+                check(segmentIndex, rawList, "round " + round + " step " + step);
+            }
+        }
+    }
+
+    @Test
+    public void dataManagerRowsMatchRawList() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            VHAdapter adapter = new VHAdapter(null);
+            adapter.register(new TestBridge(), Integer.class);
+            adapter.register(new TestBridge(), Cursor.class);
+            DataManager dataManager = adapter.getDataManager();
+            for (int step = 0; step < 100; step++) {
+                int size = dataManager.size();
+                int op = size == 0 ? random.nextInt(2) : random.nextInt(5);
+                if (op == 0) {
+                    dataManager.add(random.nextInt(size + 1), mNextId++, mNextId++);
+                } else if (op == 1) {
+                    // Ignored by DataManager when the index is inside a Cursor.
+                    dataManager.addCursor(random.nextInt(size + 1), new TestCursor("c" + mNextId++, 1 + random.nextInt(5)));
+                } else if (op == 2) {
+                    int index = random.nextInt(size);
+                    dataManager.remove(index, 1 + random.nextInt(Math.min(3, size - index)));
+                } else if (op == 3) {
+                    dataManager.move(random.nextInt(size), random.nextInt(size));
+                } else {
+                    dataManager.update(random.nextInt(size), mNextId++);
+                }
+                List<String> expected = expand(dataManager.getData());
+                List<String> actual = new ArrayList<>();
+                for (int i = 0; i < dataManager.size(); i++) {
+                    actual.add(nameOf(dataManager.get(i)));
+                }
+                assertEquals("round " + round + " step " + step, expected, actual);
+            }
+        }
+    }
+
+    private static void check(SegmentIndex segmentIndex, List<Object> rawList, String message) {
+        int position = 0;
+        int segment = 0;
+        for (int rawIndex = 0; rawIndex < rawList.size(); rawIndex++) {
+            Object data = rawList.get(rawIndex);
+            assertEquals(message, position, segmentIndex.toPosition(rawIndex));
+            assertEquals(message, rawIndex, segmentIndex.toRawIndex(position));
+            if (data instanceof Cursor) {
+                assertEquals(message, rawIndex, segmentIndex.rawIndexAt(segment));
+                assertEquals(message, position, segmentIndex.startAt(segment));
+                assertEquals(message, lengthOf(data), segmentIndex.lengthAt(segment));
+                assertEquals(message, data, segmentIndex.cursorAt(segment));
+                for (int row = 0; row < lengthOf(data); row++) {
+                    assertEquals(message, segment, segmentIndex.segmentOf(position + row));
+                    if (row > 0) {
+                        assertEquals(message, -1, segmentIndex.toRawIndex(position + row));
+                    }
+                }
+                segment++;
+            } else {
+                assertEquals(message, -1, segmentIndex.segmentOf(position));
+            }
+            position += lengthOf(data);
+        }
+        assertEquals(message, segment, segmentIndex.segmentCount());
+        assertEquals(message, position - rawList.size(), segmentIndex.extraSize());
+        // The end is an insert point.
+        assertEquals(message, rawList.size(), segmentIndex.toRawIndex(position));
+        assertEquals(message, position, segmentIndex.toPosition(rawList.size()));
+    }
+
+    private static int lengthOf(Object data) {
+        return data instanceof Cursor ? ((Cursor) data).getCount() : 1;
+    }
+
+    private static List<String> expand(List rawList) {
+        List<String> rows = new ArrayList<>();
+        for (Object data : rawList) {
+            if (data instanceof TestCursor) {
+                TestCursor cursor = (TestCursor) data;
+                for (int row = 0; row < cursor.getCount(); row++) {
+                    rows.add(cursor.rowName(row));
+                }
+            } else {
+                rows.add(String.valueOf(data));
+            }
+        }
+        return rows;
+    }
+
+    private static String nameOf(Object data) {
+        return data instanceof TestCursor ? ((TestCursor) data).getString(0) : String.valueOf(data);
+    }
+}
@@ -0,0 +1,21 @@
+package com.bear.librv;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A bridge which is only registered, the tests never create holders.
+ */
+final class TestBridge extends VHBridge<VHolder> {
+    @NonNull
+    @Override
+    protected VHolder onCreateViewHolder(@NonNull View itemView) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected int layoutId() {
+        return 0;
+    }
+}
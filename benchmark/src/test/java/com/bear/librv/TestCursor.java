@@ -0,0 +1,68 @@
+package com.bear.librv;
+
+import android.database.AbstractCursor;
+
+/**
+ * A Cursor whose rows are named after the cursor, so a model list can hold them as strings.
+ */
+final class TestCursor extends AbstractCursor {
+    private static final String[] COLUMN_NAMES = {"_id"};
+    private final String mName;
+    private final int mCount;
+
+    TestCursor(String name, int count) {
+        mName = name;
+        mCount = count;
+    }
+
+    String rowName(int row) {
+        return mName + ":" + row;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return COLUMN_NAMES;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        checkPosition();
+        return rowName(mPos);
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        checkPosition();
+        return mPos;
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package com.bear.librv;
+
+import android.util.SparseIntArray;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * SpanSizeLookup installed by {@link VHAdapter} for a GridLayoutManager.
+ * The bridge is resolved by the item type in O(1), the span size of a bridge which declares it constant
+ * is cached per type and any other span size is cached per position.
+ * The span index and span group index caches of GridLayoutManager are turned on,
+ * GridLayoutManager invalidates them itself on adapter changes and span count changes.
+ */
+@SuppressWarnings("rawtypes")
+final class BridgeSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+    private final VHAdapter mAdapter;
+    private final GridLayoutManager mLayoutManager;
+    private final RecyclerView mRecyclerView;
+    private final SparseIntArray mTypeSpanSizes = new SparseIntArray();
+    private final PositionCache mPositionSpanSizes = new PositionCache();
+    // The span count which the cached span sizes were computed with.
+    private int mSpanCount;
+
+    BridgeSpanSizeLookup(VHAdapter adapter, GridLayoutManager layoutManager, RecyclerView recyclerView) {
+        mAdapter = adapter;
+        mLayoutManager = layoutManager;
+        mRecyclerView = recyclerView;
+        mSpanCount = layoutManager.getSpanCount();
+        setSpanIndexCacheEnabled(true);
+        setSpanGroupIndexCacheEnabled(true);
+        mAdapter.registerAdapterDataObserver(mPositionSpanSizes);
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+        int spanCount = mLayoutManager.getSpanCount();
+        int itemCount = mAdapter.getItemCount();
+        if (spanCount != mSpanCount) {
+            mSpanCount = spanCount;
+            mTypeSpanSizes.clear();
+            mPositionSpanSizes.reset(itemCount);
+        } else if (mPositionSpanSizes.size() != itemCount) {
+            mPositionSpanSizes.reset(itemCount);
+        }
+        int spanSize = mPositionSpanSizes.get(position);
+        if (spanSize != PositionCache.UNKNOWN) {
+            return spanSize;
+        }
+        int type = mAdapter.getItemViewType(position);
+        spanSize = mTypeSpanSizes.get(type, PositionCache.UNKNOWN);
+        if (spanSize != PositionCache.UNKNOWN) {
+            return spanSize;
+        }
+        VHBridge bridge = mAdapter.getBridge(type);
+        if (bridge == null) {
+            spanSize = 1;
+        } else {
+            spanSize = bridge.getSpanSize(mRecyclerView);
+            if (bridge.isSpanSizeConstant()) {
+                mTypeSpanSizes.put(type, spanSize);
+                return spanSize;
+            }
+        }
+        mPositionSpanSizes.put(position, spanSize);
+        return spanSize;
+    }
+
+    /**
+     * Drop the cached span sizes and the span index caches.
+     */
+    void invalidate() {
+        mTypeSpanSizes.clear();
+        mPositionSpanSizes.reset(mAdapter.getItemCount());
+        invalidateSpanIndexCache();
+        invalidateSpanGroupIndexCache();
+    }
+
+    void release() {
+        mAdapter.unregisterAdapterDataObserver(mPositionSpanSizes);
+    }
+}
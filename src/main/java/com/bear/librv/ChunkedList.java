@@ -0,0 +1,294 @@
+package com.bear.librv;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A List stored in fixed-capacity chunks, used by {@link DataManager#setChunkedStorage(boolean)}.
+ * Inserting or removing at any index only shifts one chunk and the chunk table,
+ * instead of the whole array like ArrayList, which suits feeds that keep prepending pages.
+ * Random access searches a Fenwick tree of the chunk sizes, so a change inside a chunk updates it in O(log chunks)
+ * and only adding or dropping a chunk rebuilds it, lazily in O(chunks).
+ */
+@SuppressWarnings("unchecked")
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int CHUNK_CAPACITY = 512;
+
+    private Object[][] mChunks = new Object[4][];
+    private int[] mChunkSizes = new int[4];
+    // 1-based Fenwick tree of mChunkSizes, valid if mTreeValid.
+    private int[] mTree = new int[5];
+    private boolean mTreeValid;
+    private int mChunkCount;
+    private int mSize;
+
+    ChunkedList() {
+
+    }
+
+    ChunkedList(Collection<? extends E> collection) {
+        addAll(collection);
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index);
+        int chunk = chunkOf(index);
+        return (E) mChunks[chunk][index - chunkStart(chunk)];
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index);
+        int chunk = chunkOf(index);
+        Object[] items = mChunks[chunk];
+        int offset = index - chunkStart(chunk);
+        E old = (E) items[offset];
+        items[offset] = element;
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("index = " + index + ", size = " + mSize);
+        }
+        modCount++;
+        if (mChunkCount == 0) {
+            insertChunk(0, new Object[CHUNK_CAPACITY], 0);
+        }
+        int chunk = index == mSize ? mChunkCount - 1 : chunkOf(index);
+        int offset = index - chunkStart(chunk);
+        if (mChunkSizes[chunk] == CHUNK_CAPACITY) {
+            splitChunk(chunk, CHUNK_CAPACITY / 2);
+            if (offset > CHUNK_CAPACITY / 2) {
+                chunk++;
+                offset -= CHUNK_CAPACITY / 2;
+            }
+        }
+        Object[] items = mChunks[chunk];
+        int size = mChunkSizes[chunk];
+        System.arraycopy(items, offset, items, offset + 1, size - offset);
+        items[offset] = element;
+        addChunkSize(chunk, 1);
+        mSize++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        return addAll(mSize, collection);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> collection) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("index = " + index + ", size = " + mSize);
+        }
+        Object[] elements = collection.toArray();
+        int count = elements.length;
+        if (count == 0) {
+            return false;
+        }
+        if (count < CHUNK_CAPACITY / 8) {
+            for (int i = 0; i < count; i++) {
+                add(index + i, (E) elements[i]);
+            }
+            return true;
+        }
+        modCount++;
+        // Split the chunk at the index, then put the elements into new chunks between the two parts.
+        int chunk;
+        if (index == mSize) {
+            chunk = mChunkCount;
+        } else {
+            chunk = chunkOf(index);
+            int offset = index - chunkStart(chunk);
+            if (offset > 0) {
+                splitChunk(chunk, offset);
+                chunk++;
+            }
+        }
+        int firstChunk = chunk;
+        for (int i = 0; i < count; i += CHUNK_CAPACITY) {
+            int chunkSize = Math.min(CHUNK_CAPACITY, count - i);
+            Object[] items = new Object[CHUNK_CAPACITY];
+            System.arraycopy(elements, i, items, 0, chunkSize);
+            insertChunk(chunk++, items, chunkSize);
+        }
+        mSize += count;
+        // The split and the last new chunk may be partial, merge them into their neighbours when they fit.
+        mergeChunks(chunk - 1);
+        if (firstChunk > 0) {
+            mergeChunks(firstChunk - 1);
+        }
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        E old = get(index);
+        removeRange(index, index + 1);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (mSize == 0) {
+            return;
+        }
+        modCount++;
+        Arrays.fill(mChunks, 0, mChunkCount, null);
+        mChunkCount = 0;
+        mTreeValid = false;
+        mSize = 0;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        if (fromIndex < 0 || toIndex > mSize) {
+            throw new IndexOutOfBoundsException("fromIndex = " + fromIndex + ", toIndex = " + toIndex + ", size = " + mSize);
+        }
+        modCount++;
+        int chunk = chunkOf(fromIndex);
+        int offset = fromIndex - chunkStart(chunk);
+        int remaining = toIndex - fromIndex;
+        int firstChunk = chunk;
+        while (remaining > 0) {
+            int size = mChunkSizes[chunk];
+            int count = Math.min(remaining, size - offset);
+            Object[] items = mChunks[chunk];
+            System.arraycopy(items, offset + count, items, offset, size - offset - count);
+            Arrays.fill(items, size - count, size, null);
+            addChunkSize(chunk, -count);
+            remaining -= count;
+            chunk++;
+            offset = 0;
+        }
+        mSize -= toIndex - fromIndex;
+        // Drop the emptied chunks and merge the boundary chunks if they fit in one.
+        int writeChunk = firstChunk;
+        for (int i = firstChunk; i < chunk; i++) {
+            if (mChunkSizes[i] > 0) {
+                mChunks[writeChunk] = mChunks[i];
+                mChunkSizes[writeChunk] = mChunkSizes[i];
+                writeChunk++;
+            }
+        }
+        removeChunks(writeChunk, chunk - writeChunk);
+        if (writeChunk > 0) {
+            mergeChunks(writeChunk - 1);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index = " + index + ", size = " + mSize);
+        }
+    }
+
+    // The sum of the sizes of the chunks before the chunk.
+    private int chunkStart(int chunk) {
+        ensureTree();
+        int start = 0;
+        for (int i = chunk; i > 0; i -= i & -i) {
+            start += mTree[i];
+        }
+        return start;
+    }
+
+    // The chunk which contains the index, the index must be smaller than the size.
+    private int chunkOf(int index) {
+        ensureTree();
+        int chunk = 0;
+        for (int step = Integer.highestOneBit(mChunkCount); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next <= mChunkCount && mTree[next] <= index) {
+                chunk = next;
+                index -= mTree[next];
+            }
+        }
+        return chunk;
+    }
+
+    private void addChunkSize(int chunk, int delta) {
+        mChunkSizes[chunk] += delta;
+        if (mTreeValid) {
+            for (int i = chunk + 1; i <= mChunkCount; i += i & -i) {
+                mTree[i] += delta;
+            }
+        }
+    }
+
+    private void ensureTree() {
+        if (mTreeValid) {
+            return;
+        }
+        for (int i = 1; i <= mChunkCount; i++) {
+            mTree[i] = mChunkSizes[i - 1];
+        }
+        for (int i = 1; i <= mChunkCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= mChunkCount) {
+                mTree[parent] += mTree[i];
+            }
+        }
+        mTreeValid = true;
+    }
+
+    // Move the items from the offset to a new chunk right after the chunk.
+    private void splitChunk(int chunk, int offset) {
+        Object[] items = mChunks[chunk];
+        int size = mChunkSizes[chunk];
+        Object[] newItems = new Object[CHUNK_CAPACITY];
+        System.arraycopy(items, offset, newItems, 0, size - offset);
+        Arrays.fill(items, offset, size, null);
+        mChunkSizes[chunk] = offset;
+        insertChunk(chunk + 1, newItems, size - offset);
+    }
+
+    private void mergeChunks(int chunk) {
+        int next = chunk + 1;
+        if (next >= mChunkCount || mChunkSizes[chunk] + mChunkSizes[next] > CHUNK_CAPACITY) {
+            return;
+        }
+        System.arraycopy(mChunks[next], 0, mChunks[chunk], mChunkSizes[chunk], mChunkSizes[next]);
+        mChunkSizes[chunk] += mChunkSizes[next];
+        removeChunks(next, 1);
+    }
+
+    private void insertChunk(int chunk, Object[] items, int size) {
+        if (mChunkCount == mChunks.length) {
+            int capacity = mChunkCount * 2;
+            mChunks = Arrays.copyOf(mChunks, capacity);
+            mChunkSizes = Arrays.copyOf(mChunkSizes, capacity);
+            mTree = new int[capacity + 1];
+        }
+        System.arraycopy(mChunks, chunk, mChunks, chunk + 1, mChunkCount - chunk);
+        System.arraycopy(mChunkSizes, chunk, mChunkSizes, chunk + 1, mChunkCount - chunk);
+        mChunks[chunk] = items;
+        mChunkSizes[chunk] = size;
+        mChunkCount++;
+        mTreeValid = false;
+    }
+
+    private void removeChunks(int chunk, int count) {
+        if (count <= 0) {
+            return;
+        }
+        System.arraycopy(mChunks, chunk + count, mChunks, chunk, mChunkCount - chunk - count);
+        System.arraycopy(mChunkSizes, chunk + count, mChunkSizes, chunk, mChunkCount - chunk - count);
+        Arrays.fill(mChunks, mChunkCount - count, mChunkCount, null);
+        mChunkCount -= count;
+        mTreeValid = false;
+    }
+}
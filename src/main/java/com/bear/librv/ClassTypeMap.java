@@ -0,0 +1,76 @@
+package com.bear.librv;
+
+import java.util.Arrays;
+
+/**
+ * Identity map from a data class to its item type with primitive int values.
+ * Unlike keying by Class.hashCode(), two classes never collide and a lookup does not box.
+ */
+@SuppressWarnings("rawtypes")
+final class ClassTypeMap {
+    static final int NO_TYPE = Integer.MIN_VALUE;
+
+    private Class[] mKeys = new Class[16];
+    private int[] mValues = new int[16];
+    private int mSize;
+
+    int get(Class key) {
+        int mask = mKeys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            Class current = mKeys[index];
+            if (current == key) {
+                return mValues[index];
+            }
+            if (current == null) {
+                return NO_TYPE;
+            }
+        }
+    }
+
+    boolean containsKey(Class key) {
+        return get(key) != NO_TYPE;
+    }
+
+    void put(Class key, int value) {
+        if ((mSize + 1) * 2 > mKeys.length) {
+            resize(mKeys.length * 2);
+        }
+        int mask = mKeys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            Class current = mKeys[index];
+            if (current == key) {
+                mValues[index] = value;
+                return;
+            }
+            if (current == null) {
+                mKeys[index] = key;
+                mValues[index] = value;
+                mSize++;
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(mKeys, null);
+        mSize = 0;
+    }
+
+    private void resize(int capacity) {
+        Class[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        mKeys = new Class[capacity];
+        mValues = new int[capacity];
+        mSize = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(Class key) {
+        int hash = System.identityHashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+}
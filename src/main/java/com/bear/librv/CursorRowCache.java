@@ -0,0 +1,48 @@
+package com.bear.librv;
+
+import android.database.Cursor;
+import android.util.LruCache;
+
+/**
+ * Bounded LRU cache of the objects mapped from the rows of one Cursor, keyed by the row index.
+ * Binds read the cached objects instead of moving the shared Cursor again.
+ */
+final class CursorRowCache {
+    private static final int DEFAULT_MAX_SIZE = 100;
+
+    private final DataManager.CursorRowMapper mRowMapper;
+    private final LruCache<Integer, Object> mRowCache;
+
+    CursorRowCache(DataManager.CursorRowMapper rowMapper) {
+        mRowMapper = rowMapper;
+        mRowCache = new LruCache<>(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @return The mapped object of the row, or the Cursor moved to the row if the row is not loaded yet.
+     */
+    Object get(Cursor cursor, int row) {
+        Object data = mRowCache.get(row);
+        if (data != null) {
+            return data;
+        }
+        cursor.moveToPosition(row);
+        if (cursor instanceof PagedCursor && !((PagedCursor) cursor).isLoaded()) {
+            return cursor;
+        }
+        data = mRowMapper.map(cursor);
+        if (data != null) {
+            mRowCache.put(row, data);
+        }
+        return data;
+    }
+
+    /**
+     * Drop the mapped objects of the rows [startRow, startRow + rowCount).
+     */
+    void invalidate(int startRow, int rowCount) {
+        for (int row = startRow, end = startRow + rowCount; row < end; row++) {
+            mRowCache.remove(row);
+        }
+    }
+}
@@ -33,4 +33,9 @@ public class CustomData {
         CustomData customData = (CustomData) o;
         return mType == customData.mType;
     }
+
+    @Override
+    public int hashCode() {
+        return mType;
+    }
 }
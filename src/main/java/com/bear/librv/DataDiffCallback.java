@@ -0,0 +1,48 @@
+package com.bear.librv;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.List;
+
+/**
+ * DiffUtil callback used by {@link DataManager#setDataAsync(List)}.
+ * The bridges are resolved on the main thread, the comparison itself is delegated to them.
+ */
+@SuppressWarnings("rawtypes")
+final class DataDiffCallback extends DiffUtil.Callback {
+    private final List mOldList;
+    private final List mNewList;
+    private final VHBridge[] mOldBridges;
+    private final VHBridge[] mNewBridges;
+
+    DataDiffCallback(List oldList, VHBridge[] oldBridges, List newList, VHBridge[] newBridges) {
+        mOldList = oldList;
+        mOldBridges = oldBridges;
+        mNewList = newList;
+        mNewBridges = newBridges;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldList.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewList.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        VHBridge bridge = mNewBridges[newItemPosition];
+        if (bridge == null || bridge != mOldBridges[oldItemPosition]) {
+            return false;
+        }
+        return bridge.areItemsTheSame(mOldList.get(oldItemPosition), mNewList.get(newItemPosition));
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        return mNewBridges[newItemPosition].areContentsTheSame(mOldList.get(oldItemPosition), mNewList.get(newItemPosition));
+    }
+}
@@ -2,8 +2,12 @@ package com.bear.librv;
 
 import android.database.Cursor;
 
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,13 +21,47 @@ public class DataManager {
     private static final String TAG = RvLog.RV_LOG_TAG;
 
     private List mProviderDataList = new ArrayList();
-    private Map<Integer, Cursor> mIndexWithCursorMap = new HashMap<>();
+    private SegmentIndex mSegmentIndex = new SegmentIndex();
+    // Only exists when a KeyExtractor is set.
+    private KeyIndex mKeyIndex;
+    // Notifications are recorded instead of dispatched while mBatchDepth > 0.
+    private NotifyBatch mNotifyBatch;
+    private int mBatchDepth;
     private VHAdapter mAdapter;
+    // Increased by every setData, an async diff is dropped if a newer setData arrives.
+    private int mDataGeneration;
+    // Increased by every structural or content change of mProviderDataList.
+    private int mModCount;
 
     public void setAdapter(VHAdapter adapter) {
         mAdapter = adapter;
     }
 
+    /**
+     * Store the data in fixed-size chunks instead of one array, so inserting and removing near the head
+     * of a very long list does not shift the whole array. {@link #getData()} still returns a List.
+     */
+    public void setChunkedStorage(boolean chunked) {
+        if (chunked == mProviderDataList instanceof ChunkedList) {
+            return;
+        }
+        mProviderDataList = chunked ? new ChunkedList(mProviderDataList) : new ArrayList(mProviderDataList);
+    }
+
+    /**
+     * Set up a key for the data, then update and remove by object find the data by key in O(1)
+     * instead of scanning the whole list with equals. The key should be unique in the list.
+     * @param keyExtractor null to remove the key index.
+     */
+    public void setKeyExtractor(KeyExtractor keyExtractor) {
+        if (keyExtractor == null) {
+            mKeyIndex = null;
+            return;
+        }
+        mKeyIndex = new KeyIndex(keyExtractor);
+        mKeyIndex.reset(mProviderDataList);
+    }
+
     public void setData(List dataList) {
         if (dataList == null) {
             RvLog.w(TAG, "setData: dataList is null");
@@ -41,12 +79,232 @@ public class DataManager {
                 regDataList.add(data);
             }
         }
+        mDataGeneration++;
+        replaceData(regDataList);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Replace the data like {@link #setData(List)}, but compute the difference on a background thread
+     * with {@link VHBridge#areItemsTheSame(Object, Object)} and {@link VHBridge#areContentsTheSame(Object, Object)},
+     * then dispatch the minimal notifications on the main thread.
+     * A diff is dropped if a newer setData or setDataAsync is called before it completes.
+     * Cursor is not supported, lists containing Cursor fall back to {@link #setData(List)}.
+     */
+    public void setDataAsync(List dataList) {
+        if (dataList == null) {
+            RvLog.w(TAG, "setDataAsync: dataList is null");
+            return;
+        }
+        if (dataList.isEmpty()) {
+            RvLog.w(TAG, "setDataAsync: dataList is empty");
+            return;
+        }
+        if (!mSegmentIndex.isEmpty()) {
+            setData(dataList);
+            return;
+        }
+        final List newList = new ArrayList();
+        List<VHBridge> newBridgeList = new ArrayList<>();
+        for (Object data : dataList) {
+            if (data instanceof Cursor) {
+                setData(dataList);
+                return;
+            }
+            VHBridge bridge = mAdapter.findBridge(data);
+            if (bridge == null) {
+                RvLog.w(TAG, "setDataAsync: " + data.getClass().getSimpleName() + " is not registered");
+            } else {
+                newList.add(data);
+                newBridgeList.add(bridge);
+            }
+        }
+        final List oldList = new ArrayList(mProviderDataList);
+        final VHBridge[] oldBridges = new VHBridge[oldList.size()];
+        for (int i = 0; i < oldBridges.length; i++) {
+            oldBridges[i] = mAdapter.findBridge(oldList.get(i));
+        }
+        final VHBridge[] newBridges = newBridgeList.toArray(new VHBridge[0]);
+        final int generation = ++mDataGeneration;
+        final int modCount = mModCount;
+        RvThreads.runOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DataDiffCallback(oldList, oldBridges, newList, newBridges));
+                RvThreads.runOnMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mDataGeneration || mProviderDataList == null) {
+                            RvLog.w(TAG, "setDataAsync: diff is stale and dropped");
+                            return;
+                        }
+                        boolean changed = modCount != mModCount;
+                        replaceData(newList);
+                        if (changed) {
+                            // The list was modified while diffing, the result does not match it any more.
+                            notifyDataSetChanged();
+                        } else {
+                            result.dispatchUpdatesTo(mListUpdateCallback);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Start a batch, the notifications of the following operations are recorded and merged,
+     * then dispatched by the matching {@link #endBatch()}. Batches can be nested.
+     */
+    public void beginBatch() {
+        if (mBatchDepth == 0 && mNotifyBatch == null) {
+            mNotifyBatch = new NotifyBatch();
+        }
+        mBatchDepth++;
+    }
+
+    /**
+     * End a batch started by {@link #beginBatch()}, the outermost one dispatches the recorded notifications.
+     */
+    public void endBatch() {
+        if (mBatchDepth == 0) {
+            RvLog.w(TAG, "endBatch: beginBatch is not called");
+            return;
+        }
+        mBatchDepth--;
+        if (mBatchDepth == 0 && !mNotifyBatch.isEmpty()) {
+            mNotifyBatch.dispatchTo(mAdapter);
+        }
+    }
+
+    /**
+     * Run the operations of the runnable in one batch.
+     */
+    public void batch(Runnable runnable) {
+        beginBatch();
+        try {
+            runnable.run();
+        } finally {
+            endBatch();
+        }
+    }
+
+    public boolean isInBatch() {
+        return mBatchDepth > 0;
+    }
+
+    private void notifyDataSetChanged() {
+        if (mBatchDepth > 0) {
+            mNotifyBatch.onDataSetChanged();
+        } else {
+            mAdapter.notifyDataSetChanged();
+        }
+    }
+
+    private void notifyItemRangeInserted(int positionStart, int itemCount) {
+        if (mBatchDepth > 0) {
+            mNotifyBatch.onInserted(positionStart, itemCount);
+        } else {
+            mAdapter.notifyItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
+    private void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        if (mBatchDepth > 0) {
+            mNotifyBatch.onRemoved(positionStart, itemCount);
+        } else {
+            mAdapter.notifyItemRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    private void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        if (mBatchDepth > 0) {
+            mNotifyBatch.onChanged(positionStart, itemCount, payload);
+        } else {
+            mAdapter.notifyItemRangeChanged(positionStart, itemCount, payload);
+        }
+    }
+
+    private void notifyItemMoved(int fromPosition, int toPosition) {
+        if (mBatchDepth > 0) {
+            mNotifyBatch.onMoved(fromPosition, toPosition);
+        } else {
+            mAdapter.notifyItemMoved(fromPosition, toPosition);
+        }
+    }
+
+    private final ListUpdateCallback mListUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position, count, payload);
+        }
+    };
+
+    private final PagedCursor.OnPageListener mOnPageListener = new PagedCursor.OnPageListener() {
+        @Override
+        public void onRowsChanged(PagedCursor cursor, int startRow, int rowCount) {
+            int segment = invalidateRows(cursor, startRow, rowCount);
+            if (segment >= 0) {
+                notifyItemRangeChanged(mSegmentIndex.startAt(segment) + startRow, rowCount, null);
+            }
+        }
+
+        @Override
+        public void onRowsEvicted(PagedCursor cursor, int startRow, int rowCount) {
+            invalidateRows(cursor, startRow, rowCount);
+        }
+
+        // Drop the mapped rows, a reloaded page may hold other data. Return the segment of the cursor.
+        private int invalidateRows(PagedCursor cursor, int startRow, int rowCount) {
+            if (mSegmentIndex == null) {
+                return -1;
+            }
+            int segment = mSegmentIndex.indexOfCursor(cursor);
+            if (segment >= 0) {
+                CursorRowCache rowCache = mSegmentIndex.rowCacheAt(segment);
+                if (rowCache != null) {
+                    rowCache.invalidate(startRow, rowCount);
+                }
+            }
+            return segment;
+        }
+    };
+
+    private void replaceData(List dataList) {
+        mModCount++;
         mProviderDataList.clear();
-        mProviderDataList.addAll(regDataList);
-        mAdapter.notifyDataSetChanged();
+        mProviderDataList.addAll(dataList);
+        mSegmentIndex.reset(mProviderDataList);
+        if (mKeyIndex != null) {
+            mKeyIndex.reset(mProviderDataList);
+        }
     }
 
     public void addCursor(int index, Cursor cursor) {
+        addCursor(index, cursor, null);
+    }
+
+    /**
+     * Add a Cursor whose rows are converted to objects by the rowMapper once and cached,
+     * then {@link #get(int)} returns the mapped object instead of the shared Cursor.
+     * A {@link PagedCursor} row which is not loaded yet is still returned as the Cursor.
+     */
+    public void addCursor(int index, Cursor cursor, CursorRowMapper rowMapper) {
         if (cursor != null && cursor.getCount() == 0) {
             RvLog.w(TAG, "addCursor: cursor count is 0");
             return;
@@ -59,9 +317,21 @@ public class DataManager {
             RvLog.w(TAG, "addCursor: index is out of range");
             return;
         }
-        mProviderDataList.add(index, cursor);
-        mIndexWithCursorMap.put(index, cursor);
-        mAdapter.notifyItemRangeInserted(index, cursor.getCount());
+        int rawIndex = mSegmentIndex.toRawIndex(index);
+        if (rawIndex < 0) {
+            RvLog.w(TAG, "addCursor: index is inside a cursor");
+            return;
+        }
+        mModCount++;
+        mProviderDataList.add(rawIndex, cursor);
+        mSegmentIndex.insertCursor(rawIndex, cursor, rowMapper != null ? new CursorRowCache(rowMapper) : null);
+        if (cursor instanceof PagedCursor) {
+            ((PagedCursor) cursor).setOnPageListener(mOnPageListener);
+        }
+        if (mKeyIndex != null) {
+            mKeyIndex.onInserted(mProviderDataList, rawIndex, 1);
+        }
+        notifyItemRangeInserted(index, cursor.getCount());
     }
 
     public void addCursorFirst(Cursor cursor) {
@@ -72,11 +342,24 @@ public class DataManager {
         addCursor(size(), cursor);
     }
 
+    public void addCursorFirst(Cursor cursor, CursorRowMapper rowMapper) {
+        addCursor(0, cursor, rowMapper);
+    }
+
+    public void addCursorLast(Cursor cursor, CursorRowMapper rowMapper) {
+        addCursor(size(), cursor, rowMapper);
+    }
+
     public void add(int index, List dataList) {
         if (!checkIndex(index)) {
             RvLog.w(TAG, "add: index is out of range");
             return;
         }
+        int rawIndex = mSegmentIndex.toRawIndex(index);
+        if (rawIndex < 0) {
+            RvLog.w(TAG, "add: index is inside a cursor");
+            return;
+        }
         List regDataList = new ArrayList();
         for (Object data : dataList) {
             if (!mAdapter.isRegister(data)) {
@@ -89,8 +372,13 @@ public class DataManager {
             RvLog.w(TAG, "add: regDataList is empty");
             return;
         }
-        mProviderDataList.addAll(index, regDataList);
-        mAdapter.notifyItemRangeInserted(index, regDataList.size());
+        mModCount++;
+        mProviderDataList.addAll(rawIndex, regDataList);
+        mSegmentIndex.onInserted(rawIndex, regDataList.size());
+        if (mKeyIndex != null) {
+            mKeyIndex.onInserted(mProviderDataList, rawIndex, regDataList.size());
+        }
+        notifyItemRangeInserted(index, regDataList.size());
     }
 
     public void add(int index, Object... datas) {
@@ -116,26 +404,146 @@ public class DataManager {
     // TODO: 2019-10-20 need removeCursor and upadteCursor method
     public void remove(Object... datas) {
         if (datas.length > 0) {
-            for (Object obj : datas) {
-                remove(findIndexInArray(obj), 1);
-            }
+            remove(Arrays.asList(datas));
         }
     }
 
+    /**
+     * Every argument removes the first data which equals it, or has its key, and is not removed yet.
+     * A matching Cursor is removed with all of its rows.
+     */
     public void remove(List dataList) {
-        if (!dataList.isEmpty()) {
-            for (Object obj : dataList) {
-                remove(findIndexInArray(obj), 1);
+        if (dataList.size() == 1) {
+            int rawIndex = findIndexInArray(dataList.get(0));
+            if (rawIndex >= 0) {
+                Object data = mProviderDataList.get(rawIndex);
+                remove(mSegmentIndex.toPosition(rawIndex), data instanceof Cursor ? ((Cursor) data).getCount() : 1);
+            }
+        } else if (!dataList.isEmpty()) {
+            // The targets are consumed in the single compaction pass of removeIf. The keys are hashed like
+            // in the KeyIndex, the data without a key only needs equals, so they are compared one by one.
+            final Map<Object, int[]> keyCounts = new HashMap<>();
+            final List<Object> dataTargets = new ArrayList<>();
+            for (Object data : dataList) {
+                if (data == null) {
+                    continue;
+                }
+                Object key = mKeyIndex != null ? mKeyIndex.keyOf(data) : null;
+                if (key != null) {
+                    addCount(keyCounts, key);
+                } else {
+                    dataTargets.add(data);
+                }
             }
+            removeIf(new Filter() {
+                @Override
+                public boolean accept(Object data) {
+                    for (int i = 0, size = dataTargets.size(); i < size; i++) {
+                        if (data.equals(dataTargets.get(i))) {
+                            dataTargets.remove(i);
+                            return true;
+                        }
+                    }
+                    if (keyCounts.isEmpty()) {
+                        return false;
+                    }
+                    Object key = mKeyIndex.keyOf(data);
+                    return key != null && takeCount(keyCounts, key);
+                }
+            });
+        }
+    }
+
+    private static void addCount(Map<Object, int[]> counts, Object target) {
+        int[] count = counts.get(target);
+        if (count == null) {
+            counts.put(target, new int[]{1});
+        } else {
+            count[0]++;
+        }
+    }
+
+    // Consume one count of the target, return false if there is none left.
+    private static boolean takeCount(Map<Object, int[]> counts, Object target) {
+        int[] count = counts.get(target);
+        if (count == null) {
+            return false;
+        }
+        if (--count[0] == 0) {
+            counts.remove(target);
+        }
+        return true;
+    }
+
+    /**
+     * Remove all the data accepted by the filter in a single pass, the list is compacted once
+     * and one notifyItemRangeRemoved is sent for each contiguous removed range.
+     * The filter also receives the Cursor, accepting it removes all of its rows.
+     */
+    public void removeIf(Filter filter) {
+        int size = mProviderDataList.size();
+        // Removed ranges in the positions before the removal, stored as start and count pairs.
+        int[] ranges = null;
+        int rangeCount = 0;
+        int writeIndex = 0;
+        int position = 0;
+        for (int readIndex = 0; readIndex < size; readIndex++) {
+            Object data = mProviderDataList.get(readIndex);
+            int positionCount = data instanceof Cursor ? ((Cursor) data).getCount() : 1;
+            if (filter.accept(data)) {
+                if (rangeCount > 0 && ranges[rangeCount * 2 - 2] + ranges[rangeCount * 2 - 1] == position) {
+                    ranges[rangeCount * 2 - 1] += positionCount;
+                } else {
+                    if (ranges == null) {
+                        ranges = new int[8];
+                    } else if (ranges.length == rangeCount * 2) {
+                        ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                    }
+                    ranges[rangeCount * 2] = position;
+                    ranges[rangeCount * 2 + 1] = positionCount;
+                    rangeCount++;
+                }
+            } else {
+                if (writeIndex != readIndex) {
+                    mProviderDataList.set(writeIndex, data);
+                }
+                writeIndex++;
+            }
+            position += positionCount;
+        }
+        if (rangeCount == 0) {
+            return;
+        }
+        mModCount++;
+        mProviderDataList.subList(writeIndex, size).clear();
+        mSegmentIndex.reset(mProviderDataList);
+        if (mKeyIndex != null) {
+            mKeyIndex.reset(mProviderDataList);
+        }
+        int removedCount = 0;
+        for (int i = 0; i < rangeCount; i++) {
+            int count = ranges[i * 2 + 1];
+            notifyItemRangeRemoved(ranges[i * 2] - removedCount, count);
+            removedCount += count;
         }
     }
 
     public void remove(int index, int num) {
         if (num > 0 && index >= 0 && index + num <= size()) {
-            mProviderDataList.subList(index, num + index).clear();
-            mAdapter.notifyItemRangeRemoved(index, num);
+            int fromRawIndex = mSegmentIndex.toRawIndex(index);
+            int toRawIndex = mSegmentIndex.toRawIndex(index + num);
+            if (fromRawIndex < 0 || toRawIndex < 0) {
+                RvLog.w(TAG, "remove: range can not split a cursor");
+                return;
+            }
+            mModCount++;
+            if (mKeyIndex != null) {
+                mKeyIndex.onRemoving(mProviderDataList, fromRawIndex, toRawIndex);
+            }
+            mProviderDataList.subList(fromRawIndex, toRawIndex).clear();
+            mSegmentIndex.onRemoved(fromRawIndex, toRawIndex, num);
+            notifyItemRangeRemoved(index, num);
         }
-        resetIndexWithCursorMap();
     }
 
     public void remove(int index) {
@@ -147,29 +555,38 @@ public class DataManager {
     }
 
     public void removeLast(int num) {
-        remove(mProviderDataList.size() - num, num);
+        remove(size() - num, num);
     }
 
     public void update(int index, Object obj, Notify notify) {
-        if (!checkIndex(index)) {
+        if (index < 0 || index >= size()) {
             RvLog.w(TAG, "update: index is out of range");
             return;
         }
         if (obj != null) {
-            mProviderDataList.set(index, obj);
+            int rawIndex = toItemRawIndex(index);
+            if (rawIndex < 0) {
+                RvLog.w(TAG, "update: cursor is read-only");
+                return;
+            }
+            mModCount++;
+            Object oldObj = mProviderDataList.set(rawIndex, obj);
+            if (mKeyIndex != null) {
+                mKeyIndex.onSet(rawIndex, oldObj, obj);
+            }
         }
-        mAdapter.notifyItemChanged(index, notify);
+        notifyItemRangeChanged(index, 1, notify);
     }
 
     public void update(Object obj) {
         if (obj != null) {
-            update(findIndexInArray(obj), obj, null);
+            update(findPosition(obj), obj, null);
         }
     }
 
     public void update(Object obj, Notify notify) {
         if (obj != null) {
-            update(findIndexInArray(obj), obj, notify);
+            update(findPosition(obj), obj, notify);
         }
     }
 
@@ -181,27 +598,76 @@ public class DataManager {
         update(index, null, null);
     }
 
-    // TODO: 2019-07-16 move notifyItemMoved有问题，先使用notifyItemRangeChanged
+    /**
+     * Move the data at fromPos to toPos, the data between them are shifted by one.
+     * Cursor rows can not be moved, and the data can not be moved into the middle of a Cursor.
+     */
     public void move(int fromPos, int toPos) {
-        if (!checkIndex(fromPos)) {
-            RvLog.w(TAG, "move: fromPos is out of range fromPos = " + fromPos);
+        moveRange(fromPos, 1, toPos);
+    }
+
+    /**
+     * Move count data starting at fromPos so that they start at toPos after the move.
+     * Only the moved data are notified, one notifyItemMoved for each of them.
+     */
+    public void moveRange(int fromPos, int count, int toPos) {
+        int size = size();
+        if (count <= 0 || fromPos < 0 || fromPos + count > size) {
+            RvLog.w(TAG, "moveRange: fromPos is out of range fromPos = " + fromPos + ", count = " + count);
             return;
         }
-        if (!checkIndex(toPos)) {
-            RvLog.w(TAG, "move: toPos is out of range toPos = " + toPos);
+        if (toPos < 0 || toPos + count > size) {
+            RvLog.w(TAG, "moveRange: toPos is out of range toPos = " + toPos);
             return;
         }
-        Object fromData = mProviderDataList.get(fromPos);
-        Object toData = mProviderDataList.get(toPos);
-        mProviderDataList.set(toPos, fromData);
-        mProviderDataList.set(fromPos, toData);
-//        mAdapter.notifyItemMoved(fromPos, toPos);
-//        //由于move机制需要刷新move范围内的item。
-//        mAdapter.notifyItemRangeChanged(fromPos, toPos - fromPos + 1);
-        mAdapter.notifyItemRangeChanged(fromPos, toPos - fromPos + 1);
+        if (fromPos == toPos) {
+            return;
+        }
+        int fromRawIndex = toItemRawIndex(fromPos);
+        // The raw range has fewer data than count if it contains a Cursor.
+        if (fromRawIndex < 0 || mSegmentIndex.toRawIndex(fromPos + count) - fromRawIndex != count) {
+            RvLog.w(TAG, "moveRange: cursor is read-only");
+            return;
+        }
+        // The raw index to insert at after the moved data are taken out.
+        int toRawIndex;
+        if (toPos < fromPos) {
+            toRawIndex = mSegmentIndex.toRawIndex(toPos);
+        } else {
+            toRawIndex = mSegmentIndex.toRawIndex(toPos + count);
+            toRawIndex = toRawIndex < 0 ? -1 : toRawIndex - count;
+        }
+        if (toRawIndex < 0) {
+            RvLog.w(TAG, "moveRange: toPos is inside a cursor");
+            return;
+        }
+        mModCount++;
+        if (toRawIndex < fromRawIndex) {
+            Collections.rotate(mProviderDataList.subList(toRawIndex, fromRawIndex + count), count);
+        } else {
+            Collections.rotate(mProviderDataList.subList(fromRawIndex, toRawIndex + count), -count);
+        }
+        mSegmentIndex.onRemoved(fromRawIndex, fromRawIndex + count, count);
+        mSegmentIndex.onInserted(toRawIndex, count);
+        if (mKeyIndex != null) {
+            mKeyIndex.onMoved(mProviderDataList, fromRawIndex, toRawIndex, count);
+        }
+        for (int i = 0; i < count; i++) {
+            if (toPos < fromPos) {
+                notifyItemMoved(fromPos + i, toPos + i);
+            } else {
+                notifyItemMoved(fromPos, toPos + count - 1);
+            }
+        }
     }
 
     private int findIndexInArray(Object obj) {
+        if (mKeyIndex != null) {
+            Object key = mKeyIndex.keyOf(obj);
+            if (key != null) {
+                return mKeyIndex.find(key, mProviderDataList);
+            }
+        }
         for (int i = 0, len = mProviderDataList.size(); i < len; i++) {
             if (mProviderDataList.get(i).equals(obj)) {
                 return i;
@@ -210,53 +676,69 @@ public class DataManager {
         return -1;
     }
 
-    public int size() {
-        int size = mProviderDataList.size();
-        if (!mIndexWithCursorMap.isEmpty()) {
-            for (HashMap.Entry<Integer, Cursor> entry : mIndexWithCursorMap.entrySet()) {
-                size = size + entry.getValue().getCount() - 1;
-            }
-        }
-        return size;
+    private int findPosition(Object obj) {
+        int rawIndex = findIndexInArray(obj);
+        return rawIndex < 0 ? -1 : mSegmentIndex.toPosition(rawIndex);
     }
 
-    private void resetIndexWithCursorMap() {
-        if (mIndexWithCursorMap.isEmpty()) {
-            return;
+    /**
+     * Find the position of the data with the key, only works after {@link #setKeyExtractor(KeyExtractor)}.
+     * @return The position, or -1 if there is no such data.
+     */
+    public int indexOfKey(Object key) {
+        if (mKeyIndex == null) {
+            RvLog.w(TAG, "indexOfKey: keyExtractor is not set");
+            return -1;
         }
-        mIndexWithCursorMap.clear();
-        Object obj;
-        for (int i = 0, size = mProviderDataList.size(); i < size; i++) {
-            obj = mProviderDataList.get(i);
-            if (obj instanceof Cursor) {
-                mIndexWithCursorMap.put(i, (Cursor) obj);
-            }
+        int rawIndex = mKeyIndex.find(key, mProviderDataList);
+        return rawIndex < 0 ? -1 : mSegmentIndex.toPosition(rawIndex);
+    }
+
+    // Raw index of a non Cursor row, -1 if the position is a Cursor row.
+    private int toItemRawIndex(int position) {
+        if (mSegmentIndex.segmentOf(position) >= 0) {
+            return -1;
         }
+        return mSegmentIndex.toRawIndex(position);
+    }
+
+    public int size() {
+        return mProviderDataList.size() + mSegmentIndex.extraSize();
     }
 
     public Object get(int position) {
-        if (!mIndexWithCursorMap.isEmpty()) {
-            for (HashMap.Entry<Integer, Cursor> entry : mIndexWithCursorMap.entrySet()) {
-                Cursor cursor = entry.getValue();
-                if (position >= entry.getKey() && position < cursor.getCount() + entry.getKey()) {
-                    cursor.moveToPosition(position - entry.getKey());
-                    return cursor;
-                }
+        if (position < 0 || position >= size()) {
+            return null;
+        }
+        int segment = mSegmentIndex.segmentOf(position);
+        if (segment >= 0) {
+            Cursor cursor = mSegmentIndex.cursorAt(segment);
+            int row = position - mSegmentIndex.startAt(segment);
+            CursorRowCache rowCache = mSegmentIndex.rowCacheAt(segment);
+            if (rowCache != null) {
+                return rowCache.get(cursor, row);
             }
+            cursor.moveToPosition(row);
+            return cursor;
         }
-        if (position >= 0 && position < size()) {
-            int realPosition = position;
-            if (!mIndexWithCursorMap.isEmpty()) {
-                for (HashMap.Entry<Integer, Cursor> entry : mIndexWithCursorMap.entrySet()) {
-                    Cursor cursor = entry.getValue();
-                    if (position > entry.getKey()) {
-                        realPosition = realPosition - cursor.getCount() + 1;
-                    }
-                }
-             }
-            return mProviderDataList.get(realPosition);
+        return mProviderDataList.get(mSegmentIndex.toRawIndex(position));
+    }
+
+    boolean isCursorRow(int position) {
+        return mSegmentIndex.segmentOf(position) >= 0;
+    }
+
+    /**
+     * @return The Cursor moved to the position, even if it is added with a CursorRowMapper, or null for other data.
+     */
+    Cursor getCursor(int position) {
+        int segment = mSegmentIndex.segmentOf(position);
+        if (segment < 0) {
+            return null;
         }
-        return null;
+        Cursor cursor = mSegmentIndex.cursorAt(segment);
+        cursor.moveToPosition(position - mSegmentIndex.startAt(segment));
+        return cursor;
     }
 
     private boolean checkIndex(int index) {
@@ -270,12 +752,35 @@ public class DataManager {
     public void clear() {
         mProviderDataList.clear();
         mProviderDataList = null;
-        for (HashMap.Entry<Integer, Cursor> entry : mIndexWithCursorMap.entrySet()) {
-            if (!entry.getValue().isClosed()) {
-                entry.getValue().close();
+        for (int i = 0, count = mSegmentIndex.segmentCount(); i < count; i++) {
+            Cursor cursor = mSegmentIndex.cursorAt(i);
+            if (!cursor.isClosed()) {
+                cursor.close();
             }
         }
-        mIndexWithCursorMap.clear();
-        mIndexWithCursorMap = null;
+        mSegmentIndex.clear();
+        mSegmentIndex = null;
+        if (mKeyIndex != null) {
+            mKeyIndex.clear();
+            mKeyIndex = null;
+        }
+    }
+
+    public interface Filter {
+        boolean accept(Object data);
+    }
+
+    public interface CursorRowMapper {
+        /**
+         * Convert the current row of the cursor to an immutable object.
+         */
+        Object map(Cursor cursor);
+    }
+
+    public interface KeyExtractor {
+        /**
+         * @return The key of the data, or null if the data has no key.
+         */
+        Object getKey(Object data);
     }
 }
@@ -0,0 +1,177 @@
+package com.bear.librv;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Arrays;
+
+/**
+ * Measured size of every adapter position along the scroll direction, kept in step with the adapter by observing
+ * its notifications. Prefix sums come from Fenwick trees over the sizes and over the measured flags,
+ * a position which has never been measured counts as the average measured size.
+ * A structural change only shifts the size array, the trees are rebuilt lazily by the next query.
+ */
+final class ItemSizeCache extends RecyclerView.AdapterDataObserver {
+    // 0 means the position has not been measured.
+    private int[] mSizes = new int[0];
+    private int mItemCount;
+    // 1-based Fenwick trees, only valid when mTreeDirty is false.
+    private long[] mSizeTree = new long[1];
+    private int[] mCountTree = new int[1];
+    private boolean mTreeDirty = true;
+    private long mMeasuredTotal;
+    private int mMeasuredCount;
+
+    int itemCount() {
+        return mItemCount;
+    }
+
+    void reset(int itemCount) {
+        ensureCapacity(itemCount);
+        Arrays.fill(mSizes, 0, mSizes.length, 0);
+        mItemCount = itemCount;
+        mTreeDirty = true;
+    }
+
+    void put(int position, int size) {
+        if (position < 0 || position >= mItemCount || size <= 0) {
+            return;
+        }
+        int oldSize = mSizes[position];
+        if (oldSize == size) {
+            return;
+        }
+        mSizes[position] = size;
+        if (mTreeDirty) {
+            return;
+        }
+        mMeasuredTotal += size - oldSize;
+        if (oldSize == 0) {
+            mMeasuredCount++;
+        }
+        for (int i = position + 1; i <= mItemCount; i += i & -i) {
+            mSizeTree[i] += size - oldSize;
+            if (oldSize == 0) {
+                mCountTree[i]++;
+            }
+        }
+    }
+
+    int averageSize() {
+        ensureTree();
+        return mMeasuredCount > 0 ? (int) (mMeasuredTotal / mMeasuredCount) : 0;
+    }
+
+    /**
+     * @return The estimated total size of the positions [0, position).
+     */
+    long prefix(int position) {
+        ensureTree();
+        position = Math.max(0, Math.min(position, mItemCount));
+        long size = 0;
+        int count = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            size += mSizeTree[i];
+            count += mCountTree[i];
+        }
+        return size + (long) (position - count) * averageSize();
+    }
+
+    /**
+     * @return The last position whose estimated start is not after the offset.
+     */
+    int positionAt(long offset) {
+        int low = 0;
+        int high = Math.max(0, mItemCount - 1);
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (prefix(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void onChanged() {
+        // The size is unknown here, it is reset when the item count does not match any more.
+        mItemCount = -1;
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        if (positionStart > mItemCount || mItemCount < 0) {
+            return;
+        }
+        ensureCapacity(mItemCount + itemCount);
+        System.arraycopy(mSizes, positionStart, mSizes, positionStart + itemCount, mItemCount - positionStart);
+        Arrays.fill(mSizes, positionStart, positionStart + itemCount, 0);
+        mItemCount += itemCount;
+        mTreeDirty = true;
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (positionStart + itemCount > mItemCount) {
+            mItemCount = -1;
+            return;
+        }
+        System.arraycopy(mSizes, positionStart + itemCount, mSizes, positionStart, mItemCount - positionStart - itemCount);
+        Arrays.fill(mSizes, mItemCount - itemCount, mItemCount, 0);
+        mItemCount -= itemCount;
+        mTreeDirty = true;
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        if (fromPosition >= mItemCount || toPosition >= mItemCount) {
+            return;
+        }
+        int size = mSizes[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(mSizes, fromPosition + 1, mSizes, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(mSizes, toPosition, mSizes, toPosition + 1, fromPosition - toPosition);
+        }
+        mSizes[toPosition] = size;
+        mTreeDirty = true;
+    }
+
+    private void ensureTree() {
+        if (!mTreeDirty) {
+            return;
+        }
+        if (mSizeTree.length < mItemCount + 1) {
+            mSizeTree = new long[mItemCount + 1];
+            mCountTree = new int[mItemCount + 1];
+        } else {
+            Arrays.fill(mSizeTree, 0L);
+            Arrays.fill(mCountTree, 0);
+        }
+        mMeasuredTotal = 0;
+        mMeasuredCount = 0;
+        // Linear time build, every node adds itself to its parent.
+        for (int i = 1; i <= mItemCount; i++) {
+            int size = mSizes[i - 1];
+            mSizeTree[i] += size;
+            if (size > 0) {
+                mCountTree[i]++;
+                mMeasuredTotal += size;
+                mMeasuredCount++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= mItemCount) {
+                mSizeTree[parent] += mSizeTree[i];
+                mCountTree[parent] += mCountTree[i];
+            }
+        }
+        mTreeDirty = false;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mSizes.length) {
+            mSizes = Arrays.copyOf(mSizes, Math.max(capacity, mSizes.length + (mSizes.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.bear.librv;
+
+import android.database.Cursor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from the key of a data to its raw index in the DataManager list.
+ * Every key in the list has an entry, so a key missing from the map is answered without a scan.
+ * Inserts and removes are only appended to a shift log, an entry replays the log lazily when it is looked up,
+ * so positions after an insert point are never rewritten eagerly. A full log is compacted into the entries,
+ * which neither reads the list nor calls the KeyExtractor.
+ */
+@SuppressWarnings("rawtypes")
+final class KeyIndex {
+    private static final int MAX_SHIFT_COUNT = 64;
+
+    private final DataManager.KeyExtractor mKeyExtractor;
+    private final Map<Object, Entry> mEntryMap = new HashMap<>();
+    // Shift log, a positive count is an insert and a negative count is a remove at the raw index.
+    private final int[] mShiftIndexes = new int[MAX_SHIFT_COUNT];
+    private final int[] mShiftCounts = new int[MAX_SHIFT_COUNT];
+    // mMinShiftIndexes[i] is the lowest raw index touched by the log from i on.
+    private final int[] mMinShiftIndexes = new int[MAX_SHIFT_COUNT + 1];
+    private int mShiftCount;
+
+    private static final class Entry {
+        // The raw index of one of the data with the key, -1 if that data was removed while others are left.
+        int mRawIndex;
+        // The length of the shift log when mRawIndex was up to date.
+        int mStamp;
+        // The number of data with the key in the list.
+        int mCount;
+
+        Entry(int rawIndex, int stamp) {
+            mRawIndex = rawIndex;
+            mStamp = stamp;
+            mCount = 1;
+        }
+    }
+
+    KeyIndex(DataManager.KeyExtractor keyExtractor) {
+        mKeyExtractor = keyExtractor;
+    }
+
+    Object keyOf(Object data) {
+        if (data == null || data instanceof Cursor) {
+            return null;
+        }
+        return mKeyExtractor.getKey(data);
+    }
+
+    /**
+     * @return The raw index of the data with the key, or -1 if there is no such data.
+     */
+    int find(Object key, List dataList) {
+        if (key == null) {
+            return -1;
+        }
+        Entry entry = mEntryMap.get(key);
+        if (entry == null) {
+            return -1;
+        }
+        int rawIndex = replay(entry);
+        if (rawIndex >= 0 && rawIndex < dataList.size() && key.equals(keyOf(dataList.get(rawIndex)))) {
+            return rawIndex;
+        }
+        // Only when one of several data with the key was removed, or a key was changed in place.
+        for (int i = 0, size = dataList.size(); i < size; i++) {
+            if (key.equals(keyOf(dataList.get(i)))) {
+                entry.mRawIndex = i;
+                entry.mStamp = mShiftCount;
+                return i;
+            }
+        }
+        mEntryMap.remove(key);
+        return -1;
+    }
+
+    /**
+     * Called after count data have been inserted into dataList at the raw index.
+     */
+    void onInserted(List dataList, int rawIndex, int count) {
+        appendShift(rawIndex, count);
+        for (int i = rawIndex, end = rawIndex + count; i < end; i++) {
+            add(dataList.get(i), i);
+        }
+    }
+
+    /**
+     * Called before the raw range [fromRawIndex, toRawIndex) is removed from dataList.
+     */
+    void onRemoving(List dataList, int fromRawIndex, int toRawIndex) {
+        for (int i = fromRawIndex; i < toRawIndex; i++) {
+            remove(dataList.get(i), i);
+        }
+        appendShift(fromRawIndex, fromRawIndex - toRawIndex);
+    }
+
+    /**
+     * Called after count data have been moved from the raw index to the raw index,
+     * toRawIndex is the start of the moved data in dataList after the move.
+     */
+    void onMoved(List dataList, int fromRawIndex, int toRawIndex, int count) {
+        appendShift(fromRawIndex, -count);
+        appendShift(toRawIndex, count);
+        for (int i = toRawIndex, end = toRawIndex + count; i < end; i++) {
+            Object key = keyOf(dataList.get(i));
+            Entry entry = key != null ? mEntryMap.get(key) : null;
+            // The logged remove dropped the entry if it pointed at a moved data.
+            if (entry != null && replay(entry) < 0) {
+                entry.mRawIndex = i;
+            }
+        }
+    }
+
+    /**
+     * Called after the data at the raw index has been replaced.
+     */
+    void onSet(int rawIndex, Object oldData, Object newData) {
+        remove(oldData, rawIndex);
+        add(newData, rawIndex);
+    }
+
+    void reset(List dataList) {
+        mEntryMap.clear();
+        mShiftCount = 0;
+        for (int i = 0, size = dataList.size(); i < size; i++) {
+            add(dataList.get(i), i);
+        }
+    }
+
+    void clear() {
+        mEntryMap.clear();
+        mShiftCount = 0;
+    }
+
+    // The shift of the insert must be logged before.
+    private void add(Object data, int rawIndex) {
+        Object key = keyOf(data);
+        if (key == null) {
+            return;
+        }
+        Entry entry = mEntryMap.get(key);
+        if (entry == null) {
+            mEntryMap.put(key, new Entry(rawIndex, mShiftCount));
+        } else {
+            entry.mCount++;
+            if (replay(entry) < 0) {
+                entry.mRawIndex = rawIndex;
+            }
+        }
+    }
+
+    // The shift of the remove must be logged after.
+    private void remove(Object data, int rawIndex) {
+        Object key = keyOf(data);
+        Entry entry = key != null ? mEntryMap.get(key) : null;
+        if (entry == null) {
+            return;
+        }
+        if (--entry.mCount == 0) {
+            mEntryMap.remove(key);
+        } else if (replay(entry) == rawIndex) {
+            entry.mRawIndex = -1;
+        }
+    }
+
+    private void appendShift(int rawIndex, int count) {
+        if (mShiftCount == MAX_SHIFT_COUNT) {
+            compact();
+        }
+        mShiftIndexes[mShiftCount] = rawIndex;
+        mShiftCounts[mShiftCount] = count;
+        mShiftCount++;
+    }
+
+    // Bring every entry up to date and empty the log, entries before the lowest shift only get a new stamp.
+    private void compact() {
+        int minShiftIndex = Integer.MAX_VALUE;
+        mMinShiftIndexes[mShiftCount] = minShiftIndex;
+        for (int i = mShiftCount - 1; i >= 0; i--) {
+            minShiftIndex = Math.min(minShiftIndex, mShiftIndexes[i]);
+            mMinShiftIndexes[i] = minShiftIndex;
+        }
+        for (Entry entry : mEntryMap.values()) {
+            if (entry.mRawIndex >= mMinShiftIndexes[entry.mStamp]) {
+                replay(entry);
+            }
+            entry.mStamp = 0;
+        }
+        mShiftCount = 0;
+    }
+
+    private int replay(Entry entry) {
+        int rawIndex = entry.mRawIndex;
+        for (int i = entry.mStamp; i < mShiftCount && rawIndex >= 0; i++) {
+            int shiftIndex = mShiftIndexes[i];
+            int shiftCount = mShiftCounts[i];
+            if (shiftCount > 0) {
+                if (rawIndex >= shiftIndex) {
+                    rawIndex += shiftCount;
+                }
+            } else if (rawIndex >= shiftIndex - shiftCount) {
+                rawIndex += shiftCount;
+            } else if (rawIndex >= shiftIndex) {
+                rawIndex = -1;
+            }
+        }
+        entry.mRawIndex = rawIndex;
+        entry.mStamp = mShiftCount;
+        return rawIndex;
+    }
+}
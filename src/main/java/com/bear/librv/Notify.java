@@ -3,20 +3,133 @@ package com.bear.librv;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Payload of a partial bind. For frequent updates prefer the change mask and the primitive slots,
+ * they need no map and several Notify of the same type for one position are merged into one
+ * {@link VHolder#bindPartial(Object, Notify)} call with the combined mask.
+ */
 public class Notify {
     public int mType;
 
     public Map<String, Object> mValue;
 
+    // Bit flags of the changed parts, combined when Notify are merged.
+    public int mMask;
+
+    // Small primitive slots, e.g. a like count or a download progress, set them by withLong and withFloat.
+    // When merged a slot keeps the value of the Notify which set it, the newer one wins if both set it for
+    // the same mask, and if they set it for different masks the merge fails into a full bind.
+    public long mLong;
+    public float mFloat;
+
+    private static final int SLOT_LONG = 1;
+    private static final int SLOT_FLOAT = 1 << 1;
+    // The slots which are set, and the masks they were set for once merged, 0 means the own mask.
+    private int mSetSlots;
+    private int mLongMask;
+    private int mFloatMask;
+
     public Notify(int type) {
         mType = type;
     }
 
     public Notify with(String key, Object value) {
         if (mValue == null) {
-            mValue = new HashMap<>();
+            mValue = new HashMap<>(4);
         }
         mValue.put(key, value);
         return this;
     }
+
+    public Notify withMask(int mask) {
+        mMask |= mask;
+        return this;
+    }
+
+    public Notify withLong(long value) {
+        mLong = value;
+        mSetSlots |= SLOT_LONG;
+        return this;
+    }
+
+    public Notify withFloat(float value) {
+        mFloat = value;
+        mSetSlots |= SLOT_FLOAT;
+        return this;
+    }
+
+    public boolean hasMask(int mask) {
+        return (mMask & mask) != 0;
+    }
+
+    /**
+     * Merge the newer Notify of the same type into this one.
+     * @return False if both set a slot for different masks, this one is then partly merged and must not be used.
+     */
+    boolean mergeFrom(Notify newer) {
+        int longMask = slotMask(mLongMask);
+        int floatMask = slotMask(mFloatMask);
+        if ((newer.mSetSlots & SLOT_LONG) != 0) {
+            if ((mSetSlots & SLOT_LONG) != 0 && longMask != newer.slotMask(newer.mLongMask)) {
+                return false;
+            }
+            mLong = newer.mLong;
+            longMask = newer.slotMask(newer.mLongMask);
+        }
+        if ((newer.mSetSlots & SLOT_FLOAT) != 0) {
+            if ((mSetSlots & SLOT_FLOAT) != 0 && floatMask != newer.slotMask(newer.mFloatMask)) {
+                return false;
+            }
+            mFloat = newer.mFloat;
+            floatMask = newer.slotMask(newer.mFloatMask);
+        }
+        mSetSlots |= newer.mSetSlots;
+        mLongMask = longMask;
+        mFloatMask = floatMask;
+        mMask |= newer.mMask;
+        if (newer.mValue != null) {
+            if (mValue == null) {
+                mValue = new HashMap<>(newer.mValue);
+            } else {
+                mValue.putAll(newer.mValue);
+            }
+        }
+        return true;
+    }
+
+    void copyFrom(Notify notify) {
+        mType = notify.mType;
+        mMask = notify.mMask;
+        mLong = notify.mLong;
+        mFloat = notify.mFloat;
+        mSetSlots = notify.mSetSlots;
+        mLongMask = notify.mLongMask;
+        mFloatMask = notify.mFloatMask;
+        if (mValue != null) {
+            mValue.clear();
+        }
+        if (notify.mValue != null) {
+            if (mValue == null) {
+                mValue = new HashMap<>(notify.mValue);
+            } else {
+                mValue.putAll(notify.mValue);
+            }
+        }
+    }
+
+    /**
+     * @return A new Notify with both merged, or null if the types differ or a slot is set for different masks.
+     */
+    static Notify merge(Notify older, Notify newer) {
+        if (older.mType != newer.mType) {
+            return null;
+        }
+        Notify merged = new Notify(older.mType);
+        merged.copyFrom(older);
+        return merged.mergeFrom(newer) ? merged : null;
+    }
+
+    private int slotMask(int mask) {
+        return mask != 0 ? mask : mMask;
+    }
 }
@@ -0,0 +1,302 @@
+package com.bear.librv;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Arrays;
+
+/**
+ * Record the notifications of a DataManager batch and dispatch the smallest set of them at commit.
+ * Adjacent inserts and removes are merged, a remove of just inserted data cancels the insert,
+ * changes are rebased through the structural operations, merged per position, dropped for inserted data,
+ * and dispatched as ranges after the structural operations.
+ */
+final class NotifyBatch {
+    private static final int OP_INSERT = 1;
+    private static final int OP_REMOVE = 2;
+    private static final int OP_MOVE = 3;
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private boolean mDataSetChanged;
+    // Structural operations in order, a move stores fromPos in mOpStarts and toPos in mOpCounts.
+    private int[] mOpTypes = new int[DEFAULT_CAPACITY];
+    private int[] mOpStarts = new int[DEFAULT_CAPACITY];
+    private int[] mOpCounts = new int[DEFAULT_CAPACITY];
+    private int mOpCount;
+    // Changed positions in the current coordinates, sorted.
+    private int[] mChangedPositions = new int[DEFAULT_CAPACITY];
+    private Object[] mChangedPayloads = new Object[DEFAULT_CAPACITY];
+    private int mChangedCount;
+    // Ranges inserted in this batch in the current coordinates, sorted and disjoint.
+    private int[] mInsertedStarts = new int[DEFAULT_CAPACITY];
+    private int[] mInsertedCounts = new int[DEFAULT_CAPACITY];
+    private int mInsertedCount;
+
+    boolean isEmpty() {
+        return !mDataSetChanged && mOpCount == 0 && mChangedCount == 0;
+    }
+
+    void onDataSetChanged() {
+        clear();
+        mDataSetChanged = true;
+    }
+
+    void onInserted(int start, int count) {
+        if (mDataSetChanged) {
+            return;
+        }
+        int last = mOpCount - 1;
+        if (last >= 0 && mOpTypes[last] == OP_INSERT && start >= mOpStarts[last] && start <= mOpStarts[last] + mOpCounts[last]) {
+            mOpCounts[last] += count;
+        } else {
+            addOp(OP_INSERT, start, count);
+        }
+        shiftChangesForInsert(start, count);
+        addInsertedRange(start, count, true);
+    }
+
+    void onRemoved(int start, int count) {
+        if (mDataSetChanged) {
+            return;
+        }
+        int last = mOpCount - 1;
+        if (last >= 0 && mOpTypes[last] == OP_REMOVE && start == mOpStarts[last]) {
+            mOpCounts[last] += count;
+        } else if (last >= 0 && mOpTypes[last] == OP_REMOVE && start + count == mOpStarts[last]) {
+            mOpStarts[last] = start;
+            mOpCounts[last] += count;
+        } else if (last >= 0 && mOpTypes[last] == OP_INSERT && start >= mOpStarts[last]
+                && start + count <= mOpStarts[last] + mOpCounts[last]) {
+            // The removed data were inserted by the last operation, drop them from it.
+            mOpCounts[last] -= count;
+            if (mOpCounts[last] == 0) {
+                mOpCount--;
+            }
+        } else {
+            addOp(OP_REMOVE, start, count);
+        }
+        shiftChangesForRemove(start, count);
+        removeInsertedRange(start, count);
+    }
+
+    void onMoved(int fromPos, int toPos) {
+        if (mDataSetChanged || fromPos == toPos) {
+            return;
+        }
+        addOp(OP_MOVE, fromPos, toPos);
+        int movedIndex = -1;
+        Object movedPayload = null;
+        for (int i = 0; i < mChangedCount; i++) {
+            if (mChangedPositions[i] == fromPos) {
+                movedIndex = i;
+                movedPayload = mChangedPayloads[i];
+                break;
+            }
+        }
+        if (movedIndex >= 0) {
+            removeChangeAt(movedIndex);
+        }
+        boolean inserted = isInserted(fromPos);
+        shiftChangesForRemove(fromPos, 1);
+        removeInsertedRange(fromPos, 1);
+        shiftChangesForInsert(toPos, 1);
+        addInsertedRange(toPos, 1, inserted);
+        if (movedIndex >= 0) {
+            onChanged(toPos, 1, movedPayload);
+        }
+    }
+
+    void onChanged(int start, int count, Object payload) {
+        if (mDataSetChanged) {
+            return;
+        }
+        for (int position = start, end = start + count; position < end; position++) {
+            if (isInserted(position)) {
+                // Inserted data are bound in full anyway.
+                continue;
+            }
+            int index = Arrays.binarySearch(mChangedPositions, 0, mChangedCount, position);
+            if (index >= 0) {
+                mChangedPayloads[index] = mergePayload(mChangedPayloads[index], payload);
+            } else {
+                insertChangeAt(-index - 1, position, payload);
+            }
+        }
+    }
+
+    void dispatchTo(RecyclerView.Adapter<?> adapter) {
+        if (mDataSetChanged) {
+            adapter.notifyDataSetChanged();
+            clear();
+            return;
+        }
+        for (int i = 0; i < mOpCount; i++) {
+            if (mOpTypes[i] == OP_INSERT) {
+                adapter.notifyItemRangeInserted(mOpStarts[i], mOpCounts[i]);
+            } else if (mOpTypes[i] == OP_REMOVE) {
+                adapter.notifyItemRangeRemoved(mOpStarts[i], mOpCounts[i]);
+            } else if (mOpTypes[i] == OP_MOVE) {
+                adapter.notifyItemMoved(mOpStarts[i], mOpCounts[i]);
+            }
+        }
+        int rangeStart = 0;
+        for (int i = 1; i <= mChangedCount; i++) {
+            if (i == mChangedCount || mChangedPositions[i] != mChangedPositions[i - 1] + 1
+                    || mChangedPayloads[i] != mChangedPayloads[rangeStart]) {
+                adapter.notifyItemRangeChanged(mChangedPositions[rangeStart], i - rangeStart, mChangedPayloads[rangeStart]);
+                rangeStart = i;
+            }
+        }
+        clear();
+    }
+
+    void clear() {
+        mDataSetChanged = false;
+        mOpCount = 0;
+        Arrays.fill(mChangedPayloads, 0, mChangedCount, null);
+        mChangedCount = 0;
+        mInsertedCount = 0;
+    }
+
+    // A null payload means a full bind, so it wins over any partial payload. Notify of the same type are merged.
+    private static Object mergePayload(Object oldPayload, Object newPayload) {
+        if (oldPayload == newPayload) {
+            return oldPayload;
+        }
+        if (oldPayload instanceof Notify && newPayload instanceof Notify) {
+            return Notify.merge((Notify) oldPayload, (Notify) newPayload);
+        }
+        return null;
+    }
+
+    private void addOp(int type, int start, int count) {
+        if (mOpCount == mOpTypes.length) {
+            int capacity = mOpCount * 2;
+            mOpTypes = Arrays.copyOf(mOpTypes, capacity);
+            mOpStarts = Arrays.copyOf(mOpStarts, capacity);
+            mOpCounts = Arrays.copyOf(mOpCounts, capacity);
+        }
+        mOpTypes[mOpCount] = type;
+        mOpStarts[mOpCount] = start;
+        mOpCounts[mOpCount] = count;
+        mOpCount++;
+    }
+
+    private void shiftChangesForInsert(int start, int count) {
+        for (int i = 0; i < mChangedCount; i++) {
+            if (mChangedPositions[i] >= start) {
+                mChangedPositions[i] += count;
+            }
+        }
+    }
+
+    private void shiftChangesForRemove(int start, int count) {
+        int writeIndex = 0;
+        for (int i = 0; i < mChangedCount; i++) {
+            int position = mChangedPositions[i];
+            if (position >= start && position < start + count) {
+                continue;
+            }
+            mChangedPositions[writeIndex] = position >= start + count ? position - count : position;
+            mChangedPayloads[writeIndex] = mChangedPayloads[i];
+            writeIndex++;
+        }
+        Arrays.fill(mChangedPayloads, writeIndex, mChangedCount, null);
+        mChangedCount = writeIndex;
+    }
+
+    private void insertChangeAt(int index, int position, Object payload) {
+        if (mChangedCount == mChangedPositions.length) {
+            int capacity = mChangedCount * 2;
+            mChangedPositions = Arrays.copyOf(mChangedPositions, capacity);
+            mChangedPayloads = Arrays.copyOf(mChangedPayloads, capacity);
+        }
+        System.arraycopy(mChangedPositions, index, mChangedPositions, index + 1, mChangedCount - index);
+        System.arraycopy(mChangedPayloads, index, mChangedPayloads, index + 1, mChangedCount - index);
+        mChangedPositions[index] = position;
+        mChangedPayloads[index] = payload;
+        mChangedCount++;
+    }
+
+    private void removeChangeAt(int index) {
+        System.arraycopy(mChangedPositions, index + 1, mChangedPositions, index, mChangedCount - index - 1);
+        System.arraycopy(mChangedPayloads, index + 1, mChangedPayloads, index, mChangedCount - index - 1);
+        mChangedCount--;
+        mChangedPayloads[mChangedCount] = null;
+    }
+
+    private boolean isInserted(int position) {
+        for (int i = 0; i < mInsertedCount; i++) {
+            if (position >= mInsertedStarts[i] && position < mInsertedStarts[i] + mInsertedCounts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Shift the inserted ranges for an insert, and record the new range if the data are new to this batch.
+    private void addInsertedRange(int start, int count, boolean inserted) {
+        boolean merged = false;
+        for (int i = 0; i < mInsertedCount; i++) {
+            int rangeStart = mInsertedStarts[i];
+            int rangeEnd = rangeStart + mInsertedCounts[i];
+            if (rangeStart >= start) {
+                mInsertedStarts[i] += count;
+            } else if (inserted && rangeEnd >= start) {
+                mInsertedCounts[i] += count;
+                merged = true;
+            } else if (rangeEnd > start) {
+                // An old data is moved into an inserted range, split the range around it.
+                mInsertedCounts[i] = start - rangeStart;
+                insertRangeAt(i + 1, start + count, rangeEnd - start);
+                i++;
+            }
+        }
+        if (inserted && !merged) {
+            int index = 0;
+            while (index < mInsertedCount && mInsertedStarts[index] < start) {
+                index++;
+            }
+            insertRangeAt(index, start, count);
+        }
+    }
+
+    private void insertRangeAt(int index, int start, int count) {
+        if (mInsertedCount == mInsertedStarts.length) {
+            int capacity = mInsertedCount * 2;
+            mInsertedStarts = Arrays.copyOf(mInsertedStarts, capacity);
+            mInsertedCounts = Arrays.copyOf(mInsertedCounts, capacity);
+        }
+        System.arraycopy(mInsertedStarts, index, mInsertedStarts, index + 1, mInsertedCount - index);
+        System.arraycopy(mInsertedCounts, index, mInsertedCounts, index + 1, mInsertedCount - index);
+        mInsertedStarts[index] = start;
+        mInsertedCounts[index] = count;
+        mInsertedCount++;
+    }
+
+    private void removeInsertedRange(int start, int count) {
+        int end = start + count;
+        int writeIndex = 0;
+        for (int i = 0; i < mInsertedCount; i++) {
+            int rangeStart = mInsertedStarts[i];
+            int rangeEnd = rangeStart + mInsertedCounts[i];
+            int newStart;
+            int newCount;
+            if (rangeEnd <= start) {
+                newStart = rangeStart;
+                newCount = rangeEnd - rangeStart;
+            } else if (rangeStart >= end) {
+                newStart = rangeStart - count;
+                newCount = rangeEnd - rangeStart;
+            } else {
+                newStart = Math.min(rangeStart, start);
+                newCount = Math.max(0, start - rangeStart) + Math.max(0, rangeEnd - end);
+            }
+            if (newCount > 0) {
+                mInsertedStarts[writeIndex] = newStart;
+                mInsertedCounts[writeIndex] = newCount;
+                writeIndex++;
+            }
+        }
+        mInsertedCount = writeIndex;
+    }
+}
@@ -0,0 +1,353 @@
+package com.bear.librv;
+
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A read-only Cursor whose rows are loaded in fixed-size pages on a background thread.
+ * The total count is known up front, so the adapter positions are stable before any row is loaded.
+ * Moving to a row requests its page and prefetches the next page in the moving direction,
+ * pages far from the current row are evicted to cap the memory.
+ * The getters return null or 0 for rows which are not loaded yet, check {@link #isLoaded()} to show a placeholder.
+ * A page which failed to load is not requested again until {@link #retryFailedPages()} is called,
+ * rows missing from a short page are loaded as rows of nulls.
+ * Add it to {@link DataManager#addCursor(int, Cursor)}, the loaded rows are rebound automatically.
+ */
+public class PagedCursor extends AbstractCursor {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int DEFAULT_MAX_PAGE_COUNT = 8;
+    // Marks a page which is being loaded.
+    private static final Object[][] LOADING = new Object[0][];
+
+    private final int mCount;
+    private final String[] mColumnNames;
+    private final PageLoader mPageLoader;
+    private int mPageSize = DEFAULT_PAGE_SIZE;
+    private int mMaxPageCount = DEFAULT_MAX_PAGE_COUNT;
+    // Only accessed on the main thread, page index -> rows.
+    private final SparseArray<Object[][]> mPageArray = new SparseArray<>();
+    // Only accessed on the main thread, the pages whose last load failed.
+    private final SparseBooleanArray mFailedPages = new SparseBooleanArray();
+    private int mCurrentPage;
+    private volatile boolean mClosed;
+    private OnPageListener mOnPageListener;
+
+    public interface PageLoader {
+        /**
+         * Load rows [offset, offset + limit) on a background thread, e.g. a query with LIMIT and OFFSET.
+         * The returned Cursor is closed after its rows are copied.
+         */
+        Cursor loadPage(int offset, int limit);
+    }
+
+    interface OnPageListener {
+        /**
+         * The rows were loaded or reset, their mapped objects are stale and the rows should be rebound.
+         */
+        void onRowsChanged(PagedCursor cursor, int startRow, int rowCount);
+
+        /**
+         * The rows were evicted, their mapped objects are stale.
+         */
+        void onRowsEvicted(PagedCursor cursor, int startRow, int rowCount);
+    }
+
+    /**
+     * @param count The total count of the rows, e.g. from a count query.
+     * @param columnNames The columns which the PageLoader returns, in the same order.
+     */
+    public PagedCursor(int count, @NonNull String[] columnNames, @NonNull PageLoader pageLoader) {
+        mCount = count;
+        mColumnNames = columnNames;
+        mPageLoader = pageLoader;
+    }
+
+    public void setPageSize(int pageSize) {
+        if (pageSize > 0) {
+            mPageSize = pageSize;
+        }
+    }
+
+    /**
+     * The maximum number of pages kept in memory, should be large enough to cover the visible rows and the prefetch.
+     */
+    public void setMaxPageCount(int maxPageCount) {
+        if (maxPageCount > 1) {
+            mMaxPageCount = maxPageCount;
+        }
+    }
+
+    void setOnPageListener(OnPageListener listener) {
+        mOnPageListener = listener;
+    }
+
+    /**
+     * Allow the pages which failed to load to be requested again, their rows are rebound.
+     */
+    public void retryFailedPages() {
+        int size = mFailedPages.size();
+        if (size == 0) {
+            return;
+        }
+        int[] pages = new int[size];
+        for (int i = 0; i < size; i++) {
+            pages[i] = mFailedPages.keyAt(i);
+        }
+        mFailedPages.clear();
+        if (mOnPageListener != null) {
+            for (int page : pages) {
+                int offset = page * mPageSize;
+                mOnPageListener.onRowsChanged(this, offset, Math.min(mPageSize, mCount - offset));
+            }
+        }
+    }
+
+    /**
+     * @return Whether the row at the current position is loaded.
+     */
+    public boolean isLoaded() {
+        return currentRow() != null;
+    }
+
+    public boolean isLoaded(int position) {
+        return row(position) != null;
+    }
+
+    /**
+     * @return Whether the page of the row at the current position failed to load, e.g. to show a retry button.
+     */
+    public boolean isLoadFailed() {
+        int position = getPosition();
+        return position >= 0 && position < mCount && mFailedPages.get(position / mPageSize);
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public boolean onMove(int oldPosition, int newPosition) {
+        int page = newPosition / mPageSize;
+        mCurrentPage = page;
+        requestPage(page);
+        if (newPosition > oldPosition) {
+            requestPage(page + 1);
+        } else if (newPosition < oldPosition) {
+            requestPage(page - 1);
+        }
+        return true;
+    }
+
+    @Override
+    public String getString(int column) {
+        Object value = value(column);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public short getShort(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).shortValue() : 0;
+    }
+
+    @Override
+    public int getInt(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    @Override
+    public long getLong(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    @Override
+    public float getFloat(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).floatValue() : 0F;
+    }
+
+    @Override
+    public double getDouble(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0D;
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        Object value = value(column);
+        return value instanceof byte[] ? (byte[]) value : null;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return value(column) == null;
+    }
+
+    @Override
+    public int getType(int column) {
+        Object value = value(column);
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        } else if (value instanceof Long) {
+            return FIELD_TYPE_INTEGER;
+        } else if (value instanceof Double) {
+            return FIELD_TYPE_FLOAT;
+        } else if (value instanceof byte[]) {
+            return FIELD_TYPE_BLOB;
+        }
+        return FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        mClosed = true;
+        mPageArray.clear();
+        mFailedPages.clear();
+    }
+
+    private Object value(int column) {
+        Object[] row = currentRow();
+        return row != null ? row[column] : null;
+    }
+
+    private Object[] currentRow() {
+        return row(getPosition());
+    }
+
+    private Object[] row(int position) {
+        if (position < 0 || position >= mCount) {
+            return null;
+        }
+        Object[][] rows = mPageArray.get(position / mPageSize);
+        if (rows == null || rows == LOADING) {
+            return null;
+        }
+        int index = position % mPageSize;
+        return index < rows.length ? rows[index] : null;
+    }
+
+    private void requestPage(final int page) {
+        final int offset = page * mPageSize;
+        if (page < 0 || offset >= mCount || mClosed || mPageArray.get(page) != null || mFailedPages.get(page)) {
+            return;
+        }
+        mPageArray.put(page, LOADING);
+        evictPages();
+        final int limit = Math.min(mPageSize, mCount - offset);
+        RvThreads.runOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                final Object[][] rows = mClosed ? null : loadRows(offset, limit);
+                RvThreads.runOnMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mClosed) {
+                            return;
+                        }
+                        if (rows == null) {
+                            // Binds must not request it again, only retryFailedPages() does.
+                            mPageArray.remove(page);
+                            mFailedPages.put(page, true);
+                            return;
+                        }
+                        mPageArray.put(page, rows);
+                        evictPages();
+                        if (mPageArray.get(page) != null && mOnPageListener != null) {
+                            mOnPageListener.onRowsChanged(PagedCursor.this, offset, rows.length);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private Object[][] loadRows(int offset, int limit) {
+        Cursor cursor = null;
+        try {
+            cursor = mPageLoader.loadPage(offset, limit);
+            if (cursor == null) {
+                return null;
+            }
+            int rowCount = Math.min(limit, cursor.getCount());
+            int columnCount = mColumnNames.length;
+            Object[][] rows = new Object[limit][];
+            for (int i = 0; i < rowCount && cursor.moveToPosition(i); i++) {
+                Object[] row = new Object[columnCount];
+                for (int column = 0; column < columnCount; column++) {
+                    row[column] = readValue(cursor, column);
+                }
+                rows[i] = row;
+            }
+            if (rows[limit - 1] == null) {
+                // The rows were deleted after the count was taken, they must not stay placeholders.
+                RvLog.w(RvLog.RV_LOG_TAG, "PagedCursor: page is short, offset = " + offset + ", rows = " + rowCount);
+                Object[] emptyRow = new Object[columnCount];
+                for (int i = 0; i < limit; i++) {
+                    if (rows[i] == null) {
+                        rows[i] = emptyRow;
+                    }
+                }
+            }
+            return rows;
+        } catch (RuntimeException e) {
+            RvLog.w(RvLog.RV_LOG_TAG, "PagedCursor: load page failed, offset = " + offset + ", " + e);
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    private static Object readValue(Cursor cursor, int column) {
+        switch (cursor.getType(column)) {
+            case FIELD_TYPE_INTEGER:
+                return cursor.getLong(column);
+            case FIELD_TYPE_FLOAT:
+                return cursor.getDouble(column);
+            case FIELD_TYPE_STRING:
+                return cursor.getString(column);
+            case FIELD_TYPE_BLOB:
+                return cursor.getBlob(column);
+            default:
+                return null;
+        }
+    }
+
+    // Drop the loaded pages farthest from the current page until the page count fits.
+    private void evictPages() {
+        while (mPageArray.size() > mMaxPageCount) {
+            int farthestIndex = -1;
+            int farthestDistance = -1;
+            for (int i = 0, size = mPageArray.size(); i < size; i++) {
+                int distance = Math.abs(mPageArray.keyAt(i) - mCurrentPage);
+                if (mPageArray.valueAt(i) != LOADING && distance > farthestDistance) {
+                    farthestIndex = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthestIndex < 0) {
+                return;
+            }
+            int page = mPageArray.keyAt(farthestIndex);
+            mPageArray.removeAt(farthestIndex);
+            if (mOnPageListener != null) {
+                int offset = page * mPageSize;
+                mOnPageListener.onRowsEvicted(this, offset, Math.min(mPageSize, mCount - offset));
+            }
+        }
+    }
+}
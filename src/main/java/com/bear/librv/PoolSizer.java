@@ -0,0 +1,136 @@
+package com.bear.librv;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Track the holders of every view type and size the RecycledViewPool of the attached RecyclerView.
+ * The size is the bridge hint (or the pool default), at least the pre-inflate count, and in the adaptive mode
+ * at least the peak number of attached holders plus the growth from holders created in a steady state.
+ * A pool shared by several adapters is never shrunk below the size another sizer has set, since the pool has no getter
+ * for its sizes they are remembered per pool.
+ */
+@SuppressWarnings("rawtypes")
+final class PoolSizer {
+    // Same as the default of RecycledViewPool.
+    static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+    // Same as the default view cache size of RecyclerView, these holders are neither attached nor in the pool.
+    private static final int DEFAULT_VIEW_CACHE_SIZE = 2;
+
+    // Only accessed on the main thread, pool -> view type -> the largest size set by any sizer.
+    private static final Map<RecyclerView.RecycledViewPool, SparseIntArray> sPoolSizes = new WeakHashMap<>();
+
+    private final SparseArray<PoolStats> mStatsArray = new SparseArray<>();
+    private RecyclerView mRecyclerView;
+    private boolean mAdaptive;
+
+    void attach(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        for (int i = 0, size = mStatsArray.size(); i < size; i++) {
+            PoolStats stats = mStatsArray.valueAt(i);
+            // The pool may be new or shared, so the size is set again.
+            stats.mMaxRecycledViews = -1;
+            stats.mAttachedCount = 0;
+            update(stats);
+        }
+    }
+
+    void detach() {
+        mRecyclerView = null;
+    }
+
+    void setAdaptive(boolean adaptive) {
+        mAdaptive = adaptive;
+        for (int i = 0, size = mStatsArray.size(); i < size; i++) {
+            update(mStatsArray.valueAt(i));
+        }
+    }
+
+    void onBridgeRegistered(VHBridge bridge) {
+        PoolStats stats = obtain(bridge.mType);
+        stats.mMaxRecycledViewsHint = bridge.maxRecycledViews();
+        stats.mPreInflateCount = Math.max(0, bridge.preInflateCount());
+        update(stats);
+    }
+
+    void onCreated(int viewType) {
+        PoolStats stats = obtain(viewType);
+        stats.mCreateCount++;
+        // Every holder alive fits into the attached, cached and pooled ones, creating more means the pool dropped some.
+        if (mAdaptive && stats.mReuseCount > 0
+                && stats.mCreateCount > stats.mPeakAttachedCount + DEFAULT_VIEW_CACHE_SIZE + stats.mMaxRecycledViews
+                && stats.mGrowth < stats.mPeakAttachedCount) {
+            stats.mGrowth++;
+            update(stats);
+        }
+    }
+
+    void onBound(VHolder holder) {
+        PoolStats stats = obtain(holder.getItemViewType());
+        stats.mBindCount++;
+        if (holder.mBound) {
+            stats.mReuseCount++;
+        }
+        holder.mBound = true;
+    }
+
+    void onAttached(int viewType) {
+        PoolStats stats = obtain(viewType);
+        stats.mAttachedCount++;
+        if (stats.mAttachedCount > stats.mPeakAttachedCount) {
+            stats.mPeakAttachedCount = stats.mAttachedCount;
+            if (mAdaptive) {
+                update(stats);
+            }
+        }
+    }
+
+    void onDetached(int viewType) {
+        PoolStats stats = mStatsArray.get(viewType);
+        if (stats != null && stats.mAttachedCount > 0) {
+            stats.mAttachedCount--;
+        }
+    }
+
+    PoolStats get(int viewType) {
+        return mStatsArray.get(viewType);
+    }
+
+    private PoolStats obtain(int viewType) {
+        PoolStats stats = mStatsArray.get(viewType);
+        if (stats == null) {
+            stats = new PoolStats(viewType);
+            mStatsArray.put(viewType, stats);
+        }
+        return stats;
+    }
+
+    private void update(PoolStats stats) {
+        int max = stats.mMaxRecycledViewsHint >= 0 ? stats.mMaxRecycledViewsHint : DEFAULT_MAX_RECYCLED_VIEWS;
+        max = Math.max(max, stats.mPreInflateCount);
+        if (mAdaptive) {
+            max = Math.max(max, stats.mPeakAttachedCount + stats.mGrowth);
+        }
+        if (mRecyclerView == null) {
+            return;
+        }
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        SparseIntArray poolSizes = sPoolSizes.get(pool);
+        if (poolSizes == null) {
+            poolSizes = new SparseIntArray();
+            sPoolSizes.put(pool, poolSizes);
+        }
+        // Shrinking a shared pool would evict the holders another adapter has grown it for.
+        max = Math.max(max, poolSizes.get(stats.mViewType, 0));
+        if (max != stats.mMaxRecycledViews) {
+            stats.mMaxRecycledViews = max;
+            poolSizes.put(stats.mViewType, max);
+            pool.setMaxRecycledViews(stats.mViewType, max);
+        }
+    }
+}
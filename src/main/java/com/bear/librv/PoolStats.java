@@ -0,0 +1,65 @@
+package com.bear.librv;
+
+/**
+ * Usage of one view type observed by {@link VHAdapter}, see {@link VHAdapter#getPoolStats(int)}.
+ * Once scrolling reaches a steady state the create count should stop growing while the reuse count keeps growing.
+ */
+public final class PoolStats {
+    final int mViewType;
+    int mCreateCount;
+    int mBindCount;
+    int mReuseCount;
+    int mAttachedCount;
+    int mPeakAttachedCount;
+    int mMaxRecycledViews = PoolSizer.DEFAULT_MAX_RECYCLED_VIEWS;
+    // Set from the bridge, -1 means no hint.
+    int mMaxRecycledViewsHint = -1;
+    int mPreInflateCount;
+    // Extra pool size added by the adaptive mode when holders are created in a steady state.
+    int mGrowth;
+
+    PoolStats(int viewType) {
+        mViewType = viewType;
+    }
+
+    public int getViewType() {
+        return mViewType;
+    }
+
+    public int getCreateCount() {
+        return mCreateCount;
+    }
+
+    public int getBindCount() {
+        return mBindCount;
+    }
+
+    /**
+     * @return The number of binds of holders which had been bound before, i.e. which came from the pool or the cache.
+     */
+    public int getReuseCount() {
+        return mReuseCount;
+    }
+
+    public int getAttachedCount() {
+        return mAttachedCount;
+    }
+
+    public int getPeakAttachedCount() {
+        return mPeakAttachedCount;
+    }
+
+    /**
+     * @return The max recycled views which has been set to the RecycledViewPool for this type.
+     */
+    public int getMaxRecycledViews() {
+        return mMaxRecycledViews;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{viewType=" + mViewType + ", create=" + mCreateCount + ", bind=" + mBindCount
+                + ", reuse=" + mReuseCount + ", attached=" + mAttachedCount + ", peakAttached=" + mPeakAttachedCount
+                + ", maxRecycledViews=" + mMaxRecycledViews + "}";
+    }
+}
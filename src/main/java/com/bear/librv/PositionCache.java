@@ -0,0 +1,96 @@
+package com.bear.librv;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Arrays;
+
+/**
+ * Per-position int cache, kept in step with the adapter by observing its notifications,
+ * e.g. the view types of {@link VHAdapter#getItemViewType(int)} are an array read once a position is resolved.
+ */
+final class PositionCache extends RecyclerView.AdapterDataObserver {
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private int[] mTypes = new int[0];
+    private int mSize;
+
+    int size() {
+        return mSize;
+    }
+
+    int get(int position) {
+        return position >= 0 && position < mSize ? mTypes[position] : UNKNOWN;
+    }
+
+    void put(int position, int type) {
+        if (position >= 0 && position < mSize) {
+            mTypes[position] = type;
+        }
+    }
+
+    void reset(int size) {
+        ensureCapacity(size);
+        mSize = size;
+        Arrays.fill(mTypes, 0, size, UNKNOWN);
+    }
+
+    @Override
+    public void onChanged() {
+        // The new size is not known here, the cache is reset by the adapter with the item count.
+        mSize = 0;
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        int end = Math.min(positionStart + itemCount, mSize);
+        if (positionStart < end) {
+            Arrays.fill(mTypes, positionStart, end, UNKNOWN);
+        }
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        onItemRangeChanged(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        if (positionStart > mSize) {
+            return;
+        }
+        ensureCapacity(mSize + itemCount);
+        System.arraycopy(mTypes, positionStart, mTypes, positionStart + itemCount, mSize - positionStart);
+        Arrays.fill(mTypes, positionStart, positionStart + itemCount, UNKNOWN);
+        mSize += itemCount;
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (positionStart + itemCount > mSize) {
+            mSize = Math.min(positionStart, mSize);
+            return;
+        }
+        System.arraycopy(mTypes, positionStart + itemCount, mTypes, positionStart, mSize - positionStart - itemCount);
+        mSize -= itemCount;
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        if (fromPosition >= mSize || toPosition >= mSize) {
+            return;
+        }
+        int type = mTypes[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(mTypes, fromPosition + 1, mTypes, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(mTypes, toPosition, mTypes, toPosition + 1, fromPosition - toPosition);
+        }
+        mTypes[toPosition] = type;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mTypes.length) {
+            mTypes = Arrays.copyOf(mTypes, Math.max(capacity, mTypes.length + (mTypes.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.bear.librv;
+
+import android.content.Context;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+
+/**
+ * Inflate the layouts of the bridges which declare {@link VHBridge#preInflateCount()} on a background thread,
+ * like AsyncLayoutInflater the RecyclerView is used as the parent for the LayoutParams.
+ * The holders are created on the main thread through the adapter and put into the RecycledViewPool,
+ * which {@link PoolSizer} makes large enough for them,
+ * so the first layout and the first scroll do not inflate them.
+ * Only the shortfall is inflated, the holders still in the pool from an earlier attach are counted.
+ */
+@SuppressWarnings("rawtypes")
+final class PreInflater {
+    private final VHAdapter mAdapter;
+    // Only accessed on the main thread, view type -> inflated views waiting for their holders.
+    private final SparseArray<ArrayDeque<View>> mViewQueueArray = new SparseArray<>();
+    // Increased by cancel(), the pending work of an older generation is dropped.
+    private volatile int mGeneration;
+    private int mHitCount;
+    private int mMissCount;
+
+    PreInflater(VHAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    void preInflate(final RecyclerView recyclerView, VHBridge bridge) {
+        final int layoutId = bridge.layoutId();
+        final int viewType = bridge.mType;
+        ArrayDeque<View> viewQueue = mViewQueueArray.get(viewType);
+        final int count = bridge.preInflateCount() - recyclerView.getRecycledViewPool().getRecycledViewCount(viewType)
+                - (viewQueue != null ? viewQueue.size() : 0);
+        if (count <= 0 || layoutId == -1) {
+            return;
+        }
+        Context context = recyclerView.getContext();
+        final LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
+        final int generation = mGeneration;
+        RvThreads.runOnBackground(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count && generation == mGeneration; i++) {
+                    final View view;
+                    try {
+                        view = inflater.inflate(layoutId, recyclerView, false);
+                    } catch (RuntimeException e) {
+                        // Some views can only be inflated on the main thread, they are inflated on demand.
+                        RvLog.w(RvLog.RV_LOG_TAG, "PreInflater: inflate failed, viewType = " + viewType + ", " + e);
+                        return;
+                    }
+                    RvThreads.runOnMain(new Runnable() {
+                        @Override
+                        public void run() {
+                            onInflated(recyclerView, viewType, view, generation);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * @return A pre-inflated view of the view type, or null if there is none.
+     */
+    View takeView(int viewType) {
+        ArrayDeque<View> viewQueue = mViewQueueArray.get(viewType);
+        return viewQueue != null ? viewQueue.poll() : null;
+    }
+
+    void onHit() {
+        mHitCount++;
+    }
+
+    void onMiss() {
+        mMissCount++;
+    }
+
+    int getHitCount() {
+        return mHitCount;
+    }
+
+    int getMissCount() {
+        return mMissCount;
+    }
+
+    void cancel() {
+        mGeneration++;
+        mViewQueueArray.clear();
+    }
+
+    private void onInflated(RecyclerView recyclerView, int viewType, View view, int generation) {
+        if (generation != mGeneration) {
+            return;
+        }
+        ArrayDeque<View> viewQueue = mViewQueueArray.get(viewType);
+        if (viewQueue == null) {
+            viewQueue = new ArrayDeque<>();
+            mViewQueueArray.put(viewType, viewQueue);
+        }
+        viewQueue.add(view);
+        // The adapter takes the queued view in onCreateViewHolder.
+        RecyclerView.ViewHolder holder = mAdapter.createViewHolder(recyclerView, viewType);
+        recyclerView.getRecycledViewPool().putRecycledView(holder);
+    }
+}
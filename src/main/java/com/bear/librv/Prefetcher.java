@@ -0,0 +1,300 @@
+package com.bear.librv;
+
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Call {@link VHBridge#onPrefetch(int, Object)} for the positions ahead of the visible ones in the scroll direction,
+ * so the bridges can load their resources before the holders are bound. The window grows with the scroll velocity,
+ * from MIN_COUNT up to MAX_COUNT positions, and the positions which leave it without becoming visible are cancelled.
+ * Inserts, removes and moves shift the prefetched positions instead of cancelling them, only the removed positions
+ * are cancelled, and a range change prefetches again only the positions in the window whose data was replaced.
+ * A changed position is only marked inside the notification and resolved after it, since the adapter caches
+ * and a DiffUtil dispatch may not match the positions of the notification yet.
+ * The data of the window is kept, so a cancel after a data change still gets the data which was prefetched.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class Prefetcher extends RecyclerView.AdapterDataObserver {
+    private static final int MIN_COUNT = 2;
+    private static final int MAX_COUNT = 24;
+    // The window covers the distance scrolled in this time at the current velocity.
+    private static final long LOOKAHEAD_TIME = 400L;
+
+    private final VHAdapter mAdapter;
+    private final RecyclerView mRecyclerView;
+    // The prefetched positions and their data, not ordered and not contiguous after an insert into the window.
+    private int mCount;
+    private final int[] mPositions = new int[MAX_COUNT];
+    private final Object[] mData = new Object[MAX_COUNT];
+    private final VHBridge[] mBridges = new VHBridge[MAX_COUNT];
+    // The entries whose data or bridge may have changed since they were prefetched.
+    private final boolean[] mDirty = new boolean[MAX_COUNT];
+    private boolean mResolvePosted;
+    // Pixels per millisecond, smoothed over the scroll events.
+    private float mVelocity;
+    private long mLastScrollTime;
+    private int mPendingDelta;
+
+    private final Runnable mResolveRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mResolvePosted = false;
+            resolveDirty();
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            int delta = layoutManager != null && layoutManager.canScrollVertically() ? dy : dx;
+            if (delta != 0) {
+                onScroll(delta);
+            }
+        }
+
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                mVelocity = 0F;
+                mPendingDelta = 0;
+            }
+        }
+    };
+
+    Prefetcher(VHAdapter adapter, RecyclerView recyclerView) {
+        mAdapter = adapter;
+        mRecyclerView = recyclerView;
+        recyclerView.addOnScrollListener(mScrollListener);
+        adapter.registerAdapterDataObserver(this);
+    }
+
+    void release() {
+        cancelAll();
+        mRecyclerView.removeCallbacks(mResolveRunnable);
+        mResolvePosted = false;
+        mRecyclerView.removeOnScrollListener(mScrollListener);
+        mAdapter.unregisterAdapterDataObserver(this);
+    }
+
+    @Override
+    public void onChanged() {
+        // Nothing is known about the positions.
+        cancelAll();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        int end = positionStart + itemCount;
+        boolean marked = false;
+        for (int i = 0; i < mCount; i++) {
+            int position = mPositions[i];
+            if (position >= positionStart && position < end) {
+                mDirty[i] = true;
+                marked = true;
+            }
+        }
+        if (marked && !mResolvePosted) {
+            mResolvePosted = true;
+            mRecyclerView.post(mResolveRunnable);
+        }
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        for (int i = 0; i < mCount; i++) {
+            if (mPositions[i] >= positionStart) {
+                mPositions[i] += itemCount;
+            }
+        }
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        int end = positionStart + itemCount;
+        int count = 0;
+        for (int i = 0; i < mCount; i++) {
+            int position = mPositions[i];
+            if (position >= end) {
+                position -= itemCount;
+            } else if (position >= positionStart) {
+                if (mBridges[i] != null) {
+                    mBridges[i].onCancelPrefetch(position, mData[i]);
+                }
+                continue;
+            }
+            keep(count++, i, position);
+        }
+        clear(count);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        for (int i = 0; i < mCount; i++) {
+            int position = mPositions[i];
+            if (position >= fromPosition && position < fromPosition + itemCount) {
+                mPositions[i] = position - fromPosition + toPosition;
+            } else if (fromPosition < toPosition && position >= fromPosition + itemCount && position < toPosition + itemCount) {
+                mPositions[i] = position - itemCount;
+            } else if (fromPosition > toPosition && position >= toPosition && position < fromPosition) {
+                mPositions[i] = position + itemCount;
+            }
+        }
+    }
+
+    private void onScroll(int delta) {
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - mLastScrollTime;
+        mPendingDelta += delta;
+        if (elapsed <= 0) {
+            // Several scroll events in one frame.
+            return;
+        }
+        float velocity = elapsed > LOOKAHEAD_TIME ? 0F : (float) mPendingDelta / elapsed;
+        mVelocity = mVelocity == 0F ? velocity : (mVelocity + velocity) / 2F;
+        mLastScrollTime = now;
+        mPendingDelta = 0;
+        update(delta > 0);
+    }
+
+    private void update(boolean forward) {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        int itemCount = mAdapter.getItemCount();
+        if (layoutManager == null || layoutManager.getChildCount() == 0 || itemCount == 0) {
+            return;
+        }
+        boolean vertical = layoutManager.canScrollVertically();
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        int minEdge = Integer.MAX_VALUE;
+        int maxEdge = Integer.MIN_VALUE;
+        int childCount = layoutManager.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = layoutManager.getChildAt(i);
+            int position = layoutManager.getPosition(child);
+            if (position < 0) {
+                continue;
+            }
+            first = Math.min(first, position);
+            last = Math.max(last, position);
+            minEdge = Math.min(minEdge, vertical ? layoutManager.getDecoratedTop(child) : layoutManager.getDecoratedLeft(child));
+            maxEdge = Math.max(maxEdge, vertical ? layoutManager.getDecoratedBottom(child) : layoutManager.getDecoratedRight(child));
+        }
+        if (last < 0) {
+            return;
+        }
+        // Pixels per position, the visible positions of a grid share the rows.
+        float itemSize = Math.max(1F, (float) (maxEdge - minEdge) / (last - first + 1));
+        int count = MIN_COUNT + (int) (Math.abs(mVelocity) * LOOKAHEAD_TIME / itemSize);
+        count = Math.min(count, MAX_COUNT);
+        int start = forward ? last + 1 : first - count;
+        int end = Math.min(itemCount, start + count);
+        start = Math.max(0, start);
+        moveWindow(start, Math.max(0, end - start), first, last);
+    }
+
+    // Cancel the positions leaving the window which are not visible, and prefetch the ones entering it.
+    private void moveWindow(int start, int count, int firstVisible, int lastVisible) {
+        resolveDirty();
+        int end = start + count;
+        int kept = 0;
+        for (int i = 0; i < mCount; i++) {
+            int position = mPositions[i];
+            if (position >= start && position < end) {
+                keep(kept++, i, position);
+                continue;
+            }
+            boolean visible = position >= firstVisible && position <= lastVisible;
+            if (!visible && mBridges[i] != null) {
+                mBridges[i].onCancelPrefetch(position, mData[i]);
+            }
+        }
+        clear(kept);
+        // The kept positions are inside the window, so the window always has room for the missing ones.
+        DataManager dataManager = mAdapter.getDataManager();
+        for (int position = start; position < end; position++) {
+            if (indexOf(position, kept) >= 0) {
+                continue;
+            }
+            VHBridge bridge = mAdapter.getBridge(mAdapter.getItemViewType(position));
+            prefetch(mCount++, position, bridge, bridge != null && bridge.isSupportPrefetch() ? dataManager.get(position) : null);
+        }
+    }
+
+    // Prefetch again the changed entries whose data or bridge was replaced.
+    private void resolveDirty() {
+        DataManager dataManager = mAdapter.getDataManager();
+        for (int i = 0; i < mCount; i++) {
+            if (!mDirty[i]) {
+                continue;
+            }
+            mDirty[i] = false;
+            int position = mPositions[i];
+            if (dataManager == null || position >= dataManager.size()) {
+                continue;
+            }
+            // A payload update keeps the data, a Cursor row may have been loaded behind the same Cursor.
+            Object data = dataManager.get(position);
+            VHBridge bridge = mAdapter.getBridge(mAdapter.getItemViewType(position));
+            if (data == mData[i] && bridge == mBridges[i] && !(data instanceof Cursor)) {
+                continue;
+            }
+            if (mBridges[i] != null) {
+                mBridges[i].onCancelPrefetch(position, mData[i]);
+            }
+            prefetch(i, position, bridge, data);
+        }
+    }
+
+    // The positions without a prefetching bridge are kept with a null bridge, so they are not looked up again.
+    private void prefetch(int index, int position, VHBridge bridge, Object data) {
+        mPositions[index] = position;
+        if (bridge != null && bridge.isSupportPrefetch()) {
+            mData[index] = data;
+            mBridges[index] = bridge;
+            bridge.onPrefetch(position, data);
+        } else {
+            mData[index] = null;
+            mBridges[index] = null;
+        }
+    }
+
+    private int indexOf(int position, int count) {
+        for (int i = 0; i < count; i++) {
+            if (mPositions[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void keep(int to, int from, int position) {
+        mPositions[to] = position;
+        mData[to] = mData[from];
+        mBridges[to] = mBridges[from];
+        mDirty[to] = mDirty[from];
+    }
+
+    // Drop the entries from count on.
+    private void clear(int count) {
+        for (int i = count; i < mCount; i++) {
+            mData[i] = null;
+            mBridges[i] = null;
+            mDirty[i] = false;
+        }
+        mCount = count;
+    }
+
+    private void cancelAll() {
+        for (int i = 0; i < mCount; i++) {
+            if (mBridges[i] != null) {
+                mBridges[i].onCancelPrefetch(mPositions[i], mData[i]);
+            }
+        }
+        clear(0);
+    }
+}
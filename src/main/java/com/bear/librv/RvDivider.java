@@ -4,6 +4,7 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.view.View;
 import android.view.ViewGroup;
@@ -14,6 +15,8 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 
+import java.util.Arrays;
+
 // 插入时候分割线不会移动，会有视觉问题，最好是分割线是透明区域，由background来决定颜色。
 // 插入删除由于每个itemview范围不一致，导致起始点动画突变，基本无解。建议不要有动画。
 
@@ -21,7 +24,11 @@ import androidx.recyclerview.widget.StaggeredGridLayoutManager;
  * Provide a divider that supports LinearLayoutManager, GridLayoutManager and StaggeredGridLayoutManager.
  * Divider only show between itemView and itemView, and same direction divider width is equal.
  * You can set up the vertical or horizontal divider width if you want.
- * Note: The only LinearLayoutManager supports color and drawable.
+ * The divider can be drawn with a color or a drawable for all of them, the strips are gathered from the insets
+ * of the visible children and the touching ones are merged, so a gap between two grid columns or a row of top insets
+ * is one strip. The color strips are drawn with one drawLines call per strip width,
+ * which is usually one for the vertical and one for the horizontal divider width.
+ * Call {@link #release()} after the divider is removed from a RecyclerView which stays attached.
  */
 // TODO: 2022/3/20 The width is not correct in GridLayoutManager
 public class RvDivider extends RecyclerView.ItemDecoration {
@@ -32,6 +39,58 @@ public class RvDivider extends RecyclerView.ItemDecoration {
     private Paint mPaint;
     private Drawable mDrawable;
     private RecyclerView.LayoutManager mLayoutManager;
+    private final Rect mOffsetRect = new Rect();
+    // Reusable strips of onDraw, left, top, right and bottom of each strip.
+    private int[] mStrips = new int[64];
+    private int mStripCount;
+    // Reusable line buckets for onDraw, each bucket keeps the lines of one stroke width.
+    private int[] mLineWidths = new int[2];
+    private float[][] mLinePoints = new float[2][];
+    private int[] mLinePointCounts = new int[2];
+    private int mLineBucketCount;
+    // Number of items in the first row of GridLayoutManager, -1 if it needs to be computed again.
+    private int mFirstRowCount = -1;
+    private int mFirstRowSpanCount;
+    private RecyclerView.Adapter<?> mObservedAdapter;
+    private RecyclerView mObservedParent;
+    // A detached RecyclerView may never draw again, so the adapter is not observed until the next layout.
+    private final View.OnAttachStateChangeListener mAttachListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View v) {
+
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            release();
+        }
+    };
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mFirstRowCount = -1;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            invalidateFirstRow(positionStart);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            invalidateFirstRow(positionStart);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            invalidateFirstRow(positionStart);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            invalidateFirstRow(Math.min(fromPosition, toPosition));
+        }
+    };
 
     public RvDivider(RecyclerView.LayoutManager layoutManager, int dividerWidth) {
         this(layoutManager, dividerWidth, dividerWidth, 0, null);
@@ -49,30 +108,51 @@ public class RvDivider extends RecyclerView.ItemDecoration {
         this(layoutManager, verticalDividerWidth, horizontalDividerWidth, 0, null);
     }
 
+    public RvDivider(GridLayoutManager layoutManager, int verticalDividerWidth, int horizontalDividerWidth, int color) {
+        this(layoutManager, verticalDividerWidth, horizontalDividerWidth, color, null);
+    }
+
+    public RvDivider(GridLayoutManager layoutManager, int verticalDividerWidth, int horizontalDividerWidth, Drawable drawable) {
+        this(layoutManager, verticalDividerWidth, horizontalDividerWidth, 0, drawable);
+    }
+
     public RvDivider(StaggeredGridLayoutManager layoutManager, int verticalDividerWidth, int horizontalDividerWidth) {
         this(layoutManager, verticalDividerWidth, horizontalDividerWidth, 0, null);
     }
 
+    public RvDivider(StaggeredGridLayoutManager layoutManager, int verticalDividerWidth, int horizontalDividerWidth, int color) {
+        this(layoutManager, verticalDividerWidth, horizontalDividerWidth, color, null);
+    }
+
+    public RvDivider(StaggeredGridLayoutManager layoutManager, int verticalDividerWidth, int horizontalDividerWidth, Drawable drawable) {
+        this(layoutManager, verticalDividerWidth, horizontalDividerWidth, 0, drawable);
+    }
+
     private RvDivider(RecyclerView.LayoutManager layoutManager, int verticalDividerWidth, int horizontalDividerWidth, int color, Drawable drawable) {
         mLayoutManager = layoutManager;
         mOrientation = getManagerOrientation();
         mVerticalDividerWidth = verticalDividerWidth;
         mHorizontalDividerWidth = horizontalDividerWidth;
-        // Only the LinearLayoutManager supports color and drawable.
-        if (isLinearLayoutManager(mLayoutManager)) {
-            mColor = color;
-            mDrawable = drawable;
+        mColor = color;
+        mDrawable = drawable;
+        // A plain color drawable is drawn in the batched lines.
+        if (drawable instanceof ColorDrawable) {
+            mColor = ((ColorDrawable) drawable).getColor();
+            mDrawable = null;
+        }
+        // A transparent divider is only spacing, nothing needs to be drawn.
+        if (mDrawable == null && mColor != Color.TRANSPARENT) {
             initPaint();
-        } else if (color != 0 || drawable != null) {
-            throw new RuntimeException("Other LayoutManager(GridLayoutManager or StaggeredGridLayoutManager) can not support color or drawable");
         }
     }
 
     private void initPaint() {
         mPaint = new Paint();
-        mPaint.setAntiAlias(true);
         mPaint.setDither(true);
         mPaint.setColor(mColor);
+        mPaint.setStyle(Paint.Style.STROKE);
+        // A butt line covers exactly the strip around its center line.
+        mPaint.setStrokeCap(Paint.Cap.BUTT);
     }
 
     // Note that the GridLayoutManager is a subclass of LinearLayoutManager.
@@ -87,38 +167,125 @@ public class RvDivider extends RecyclerView.ItemDecoration {
 
     @Override
     public void onDraw(@NonNull Canvas c, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
-        if (isLinearLayoutManager(mLayoutManager)) {
-            int dividerWidth = mVerticalDividerWidth != 0 ? mVerticalDividerWidth : mHorizontalDividerWidth;
-            if (mOrientation == RecyclerView.VERTICAL) {
-                drawVerticalForLinearLayout(dividerWidth, c, parent);
-            } else if (mOrientation == RecyclerView.HORIZONTAL) {
-                drawHorizontalForLinearLayout(dividerWidth, c, parent);
+        if (mPaint == null && mDrawable == null) {
+            return;
+        }
+        mStripCount = 0;
+        for (int i = 0, count = parent.getChildCount(); i < count; i++) {
+            View child = parent.getChildAt(i);
+            // Only the offsets of this divider, the insets of the LayoutParams also contain other decorations.
+            mOffsetRect.setEmpty();
+            getItemOffsets(mOffsetRect, child, parent, state);
+            Rect offset = mOffsetRect;
+            int left = child.getLeft();
+            int top = child.getTop();
+            int right = child.getRight();
+            int bottom = child.getBottom();
+            // The horizontal strips cover the corners, so the strips of the children never overlap.
+            if (offset.top > 0) {
+                addStrip(left - offset.left, top - offset.top, right + offset.right, top);
+            }
+            if (offset.bottom > 0) {
+                addStrip(left - offset.left, bottom, right + offset.right, bottom + offset.bottom);
+            }
+            if (offset.left > 0) {
+                addStrip(left - offset.left, top, left, bottom);
+            }
+            if (offset.right > 0) {
+                addStrip(right, top, right + offset.right, bottom);
+            }
+        }
+        int[] strips = mStrips;
+        if (mDrawable != null) {
+            for (int i = 0, end = mStripCount * 4; i < end; i += 4) {
+                mDrawable.setBounds(strips[i], strips[i + 1], strips[i + 2], strips[i + 3]);
+                mDrawable.draw(c);
             }
+            return;
+        }
+        mLineBucketCount = 0;
+        for (int i = 0, end = mStripCount * 4; i < end; i += 4) {
+            addStripLine(strips[i], strips[i + 1], strips[i + 2], strips[i + 3]);
+        }
+        for (int i = 0; i < mLineBucketCount; i++) {
+            mPaint.setStrokeWidth(mLineWidths[i]);
+            c.drawLines(mLinePoints[i], 0, mLinePointCounts[i], mPaint);
         }
     }
 
-    private void drawVerticalForLinearLayout(int dividerWidth, Canvas c, RecyclerView parent) {
-        for (int i = 1, count = parent.getChildCount(); i < count; i++) {
-            View child = parent.getChildAt(i);
-            if (mDrawable != null) {
-                mDrawable.setBounds(child.getLeft(), child.getTop() - dividerWidth, child.getRight(), child.getTop());
-                mDrawable.draw(c);
-            } else {
-                c.drawRect(child.getLeft(), child.getTop() - dividerWidth, child.getRight(), child.getTop(), mPaint);
+    // Merge the strip into a strip which shares a whole edge with it, the union of the two is still a rectangle.
+    private void addStrip(int left, int top, int right, int bottom) {
+        int[] strips = mStrips;
+        for (int i = 0, end = mStripCount * 4; i < end; i += 4) {
+            if (strips[i + 1] == top && strips[i + 3] == bottom) {
+                if (strips[i + 2] == left) {
+                    strips[i + 2] = right;
+                    return;
+                } else if (strips[i] == right) {
+                    strips[i] = left;
+                    return;
+                }
+            } else if (strips[i] == left && strips[i + 2] == right) {
+                if (strips[i + 3] == top) {
+                    strips[i + 3] = bottom;
+                    return;
+                } else if (strips[i + 1] == bottom) {
+                    strips[i + 1] = top;
+                    return;
+                }
             }
         }
+        int index = mStripCount * 4;
+        if (index + 4 > strips.length) {
+            // Only grows until it fits the visible children, the array is reused by the next frames.
+            mStrips = strips = Arrays.copyOf(strips, strips.length * 2);
+        }
+        strips[index] = left;
+        strips[index + 1] = top;
+        strips[index + 2] = right;
+        strips[index + 3] = bottom;
+        mStripCount++;
     }
 
-    private void drawHorizontalForLinearLayout(int dividerWidth, Canvas c, RecyclerView parent) {
-        for (int i = 1, count = parent.getChildCount(); i < count; i++) {
-            View child = parent.getChildAt(i);
-            if (mDrawable != null) {
-                mDrawable.setBounds(child.getLeft(), child.getTop() - dividerWidth, child.getRight(), child.getTop());
-                mDrawable.draw(c);
-            } else {
-                c.drawRect(child.getLeft() - dividerWidth, child.getTop(), child.getLeft(), child.getBottom(), mPaint);
+    private void addStripLine(int left, int top, int right, int bottom) {
+        int width = right - left;
+        int height = bottom - top;
+        if (width >= height) {
+            float centerY = top + height / 2F;
+            addLine(height, left, centerY, right, centerY);
+        } else {
+            float centerX = left + width / 2F;
+            addLine(width, centerX, top, centerX, bottom);
+        }
+    }
+
+    private void addLine(int strokeWidth, float startX, float startY, float stopX, float stopY) {
+        int bucket = 0;
+        while (bucket < mLineBucketCount && mLineWidths[bucket] != strokeWidth) {
+            bucket++;
+        }
+        if (bucket == mLineBucketCount) {
+            if (bucket == mLineWidths.length) {
+                mLineWidths = Arrays.copyOf(mLineWidths, bucket * 2);
+                mLinePoints = Arrays.copyOf(mLinePoints, bucket * 2);
+                mLinePointCounts = Arrays.copyOf(mLinePointCounts, bucket * 2);
             }
+            mLineWidths[bucket] = strokeWidth;
+            mLinePointCounts[bucket] = 0;
+            mLineBucketCount++;
         }
+        float[] points = mLinePoints[bucket];
+        int pointCount = mLinePointCounts[bucket];
+        if (points == null || pointCount + 4 > points.length) {
+            // Only grows until it fits the visible children, the array is reused by the next frames.
+            points = Arrays.copyOf(points != null ? points : new float[0], Math.max(64, (pointCount + 4) * 2));
+            mLinePoints[bucket] = points;
+        }
+        points[pointCount] = startX;
+        points[pointCount + 1] = startY;
+        points[pointCount + 2] = stopX;
+        points[pointCount + 3] = stopY;
+        mLinePointCounts[bucket] = pointCount + 4;
     }
 
     @Override
@@ -135,18 +302,28 @@ public class RvDivider extends RecyclerView.ItemDecoration {
     private void getItemOffsetsForGridLayoutManager(GridLayoutManager manager, Rect outRect, View view, RecyclerView parent) {
         int pos = parent.getChildAdapterPosition(view);
         int spanCount = manager.getSpanCount();
-        int spanIndex = manager.getSpanSizeLookup().getSpanIndex(pos, spanCount);
-        int spanSize = manager.getSpanSizeLookup().getSpanSize(pos);
+        int spanIndex;
+        int spanSize;
+        // GridLayoutManager assigns the span before the child is measured, so the LayoutParams are up to date here.
+        ViewGroup.LayoutParams lp = view.getLayoutParams();
+        if (lp instanceof GridLayoutManager.LayoutParams) {
+            spanIndex = ((GridLayoutManager.LayoutParams) lp).getSpanIndex();
+            spanSize = ((GridLayoutManager.LayoutParams) lp).getSpanSize();
+        } else {
+            spanIndex = manager.getSpanSizeLookup().getSpanIndex(pos, spanCount);
+            spanSize = manager.getSpanSizeLookup().getSpanSize(pos);
+        }
+        boolean firstRow = pos != RecyclerView.NO_POSITION && pos < getFirstRowCount(manager, parent);
         if (mOrientation == RecyclerView.VERTICAL) {
             int dividerBase = mVerticalDividerWidth / spanCount;
             outRect.left = dividerBase * spanIndex;
-            outRect.top = isStartInGridLayoutManager(pos, manager) ? 0 : mHorizontalDividerWidth;
+            outRect.top = firstRow ? 0 : mHorizontalDividerWidth;
             outRect.right = (spanIndex + spanSize) == spanCount ? 0 : dividerBase * (spanCount - spanIndex - 1);
         } else if (mOrientation == RecyclerView.HORIZONTAL) {
             int dividerBase = mHorizontalDividerWidth / spanCount;
             outRect.top = dividerBase * spanIndex;
-            outRect.left = isStartInGridLayoutManager(pos, manager) ? 0 : mVerticalDividerWidth;
-            outRect.bottom = (spanIndex + spanSize) == spanCount ? 0 : spanIndex + dividerBase * (spanCount - spanIndex - 1);
+            outRect.left = firstRow ? 0 : mVerticalDividerWidth;
+            outRect.bottom = (spanIndex + spanSize) == spanCount ? 0 : dividerBase * (spanCount - spanIndex - 1);
         }
     }
 
@@ -180,23 +357,74 @@ public class RvDivider extends RecyclerView.ItemDecoration {
         }
     }
 
-    private boolean isStartInGridLayoutManager(int pos, GridLayoutManager manager) {
+    // The first row is cached and only computed again when the adapter changes inside it or the span count changes.
+    private int getFirstRowCount(GridLayoutManager manager, RecyclerView parent) {
+        observeParent(parent);
+        observeAdapter(parent.getAdapter());
         int spanCount = manager.getSpanCount();
-        if (pos >= spanCount) {
-            return false;
+        if (mFirstRowCount >= 0 && mFirstRowSpanCount == spanCount) {
+            return mFirstRowCount;
         }
-        int spanSize;
-        for (int i = 0; i <= pos; i++) {
-            spanSize = manager.getSpanSizeLookup().getSpanSize(i);
-            spanCount = spanCount - spanSize;
-            if (spanCount < 0) {
-                return false;
+        int itemCount = mObservedAdapter != null ? mObservedAdapter.getItemCount() : 0;
+        int remainingSpan = spanCount;
+        int count = 0;
+        while (count < itemCount && count < spanCount) {
+            remainingSpan -= manager.getSpanSizeLookup().getSpanSize(count);
+            if (remainingSpan < 0) {
+                break;
             }
+            count++;
+        }
+        mFirstRowCount = count;
+        mFirstRowSpanCount = spanCount;
+        return count;
+    }
+
+    private void observeParent(RecyclerView parent) {
+        if (parent == mObservedParent) {
+            return;
+        }
+        if (mObservedParent != null) {
+            mObservedParent.removeOnAttachStateChangeListener(mAttachListener);
+        }
+        mObservedParent = parent;
+        if (parent != null) {
+            parent.addOnAttachStateChangeListener(mAttachListener);
+        }
+    }
+
+    private void observeAdapter(RecyclerView.Adapter<?> adapter) {
+        if (adapter == mObservedAdapter) {
+            return;
+        }
+        if (mObservedAdapter != null) {
+            mObservedAdapter.unregisterAdapterDataObserver(mDataObserver);
+        }
+        mObservedAdapter = adapter;
+        mFirstRowCount = -1;
+        if (adapter != null) {
+            adapter.registerAdapterDataObserver(mDataObserver);
+        }
+    }
+
+    private void invalidateFirstRow(int positionStart) {
+        if (positionStart <= mFirstRowCount) {
+            mFirstRowCount = -1;
         }
-        return true;
     }
 
-    private boolean isLinearLayoutManager(RecyclerView.LayoutManager layoutManager) {
-        return layoutManager instanceof LinearLayoutManager && !(layoutManager instanceof GridLayoutManager);
+    /**
+     * Drop the cached first row of GridLayoutManager, call it when the span sizes change without an adapter notification.
+     */
+    public void invalidate() {
+        mFirstRowCount = -1;
+    }
+
+    /**
+     * Stop observing the adapter and the RecyclerView, it is observed again by the next layout with this divider.
+     */
+    public void release() {
+        observeAdapter(null);
+        observeParent(null);
     }
 }
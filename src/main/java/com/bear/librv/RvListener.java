@@ -1,6 +1,7 @@
 package com.bear.librv;
 
 import android.content.Context;
+import android.util.SparseArray;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
@@ -9,14 +10,43 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.Arrays;
+
 /**
  * RecyclerView全局点击监听器
+ * In the fast dispatch mode the ids of the item views are indexed once per view type when an item is attached,
+ * a tap only checks the bounds of those target views, and taps are not delayed or swallowed by the double tap detection.
  */
 public class RvListener extends RecyclerView.SimpleOnItemTouchListener {
     private static final byte TYPE_CLICK = 1;
     private static final byte TYPE_LONG_CLICK = 2;
+    // Bound of the target ids indexed for one view type.
+    private static final int MAX_TARGET_COUNT = 32;
     private GestureDetector mGestureDetector;
+    private GestureDetector.OnDoubleTapListener mDoubleTapListener;
     private OnItemClickListener mListener;
+    private RecyclerView mRecyclerView;
+    private boolean mFastDispatch;
+    // View type -> ids of the target views, descendants before ancestors.
+    private final SparseArray<int[]> mTargetIdArray = new SparseArray<>();
+    private final int[] mTmpIds = new int[MAX_TARGET_COUNT];
+    private final RecyclerView.OnChildAttachStateChangeListener mAttachListener = new RecyclerView.OnChildAttachStateChangeListener() {
+        @Override
+        public void onChildViewAttachedToWindow(@NonNull View view) {
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(view);
+            if (holder != null) {
+                int[] ids = obtainTargetIds(holder);
+                if (holder instanceof VHolder && ((VHolder) holder).mClickTargets == null) {
+                    ((VHolder) holder).mClickTargets = findTargets(holder.itemView, ids);
+                }
+            }
+        }
+
+        @Override
+        public void onChildViewDetachedFromWindow(@NonNull View view) {
+
+        }
+    };
 
     public static class OnItemClickListener {
         //处理了返回true
@@ -30,8 +60,8 @@ public class RvListener extends RecyclerView.SimpleOnItemTouchListener {
 
     public RvListener(Context context, final RecyclerView recyclerView, OnItemClickListener listener) {
         mListener = listener;
-
-        mGestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+        mRecyclerView = recyclerView;
+        GestureDetector.SimpleOnGestureListener gestureListener = new GestureDetector.SimpleOnGestureListener() {
             //多次点击反应慢是因为走了双击事件的回调
             @Override
             public boolean onSingleTapUp(MotionEvent e) {
@@ -39,6 +69,9 @@ public class RvListener extends RecyclerView.SimpleOnItemTouchListener {
                 View childView = recyclerView.findChildViewUnder(e.getX(), e.getY());
                 if (childView != null && mListener != null) {
                     int pos = recyclerView.getChildLayoutPosition(childView);
+                    if (mFastDispatch) {
+                        return onFastClick(childView, e.getX(), e.getY(), pos, TYPE_CLICK);
+                    }
                     if(onClick(childView, e.getX(), e.getY(), pos, TYPE_CLICK)){
                         return true;
                     }else {
@@ -54,12 +87,115 @@ public class RvListener extends RecyclerView.SimpleOnItemTouchListener {
                 View childView = recyclerView.findChildViewUnder(e.getX(), e.getY());
                 if (childView != null && mListener != null) {
                     int pos = recyclerView.getChildLayoutPosition(childView);
-                    if(!onClick(childView, e.getX(), e.getY(), pos, TYPE_LONG_CLICK)){
+                    if (mFastDispatch) {
+                        onFastClick(childView, e.getX(), e.getY(), pos, TYPE_LONG_CLICK);
+                    } else if(!onClick(childView, e.getX(), e.getY(), pos, TYPE_LONG_CLICK)){
                         mListener.onItemLongClick(childView, recyclerView.getChildLayoutPosition(childView));
                     }
                 }
             }
-        });
+        };
+        mGestureDetector = new GestureDetector(context, gestureListener);
+        mDoubleTapListener = gestureListener;
+    }
+
+    /**
+     * Only the views with an id are click targets in the fast dispatch mode, at most 32 per view type,
+     * and the items of one view type should have the same hierarchy.
+     */
+    public RvListener setFastDispatch(boolean fastDispatch) {
+        if (mFastDispatch == fastDispatch) {
+            return this;
+        }
+        mFastDispatch = fastDispatch;
+        // Without the double tap listener a quick second tap is a single tap again.
+        mGestureDetector.setOnDoubleTapListener(fastDispatch ? null : mDoubleTapListener);
+        if (fastDispatch) {
+            mRecyclerView.addOnChildAttachStateChangeListener(mAttachListener);
+        } else {
+            mRecyclerView.removeOnChildAttachStateChangeListener(mAttachListener);
+            mTargetIdArray.clear();
+        }
+        return this;
+    }
+
+    // Dispatch to the target views under the point from the deepest one, then to the item view.
+    private boolean onFastClick(View itemView, float x, float y, int pos, int clickType) {
+        RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(itemView);
+        if (holder == null) {
+            return dispatch(itemView, pos, clickType);
+        }
+        int[] ids = obtainTargetIds(holder);
+        View[] targets = holder instanceof VHolder ? ((VHolder) holder).mClickTargets : null;
+        if (targets == null) {
+            targets = findTargets(itemView, ids);
+            if (holder instanceof VHolder) {
+                ((VHolder) holder).mClickTargets = targets;
+            }
+        }
+        float localX = x - itemView.getX();
+        float localY = y - itemView.getY();
+        for (View target : targets) {
+            if (target != null && isUnder(target, itemView, localX, localY) && dispatch(target, pos, clickType)) {
+                return true;
+            }
+        }
+        return dispatch(itemView, pos, clickType);
+    }
+
+    private boolean dispatch(View view, int pos, int clickType) {
+        if (clickType == TYPE_CLICK) {
+            return mListener.onItemClick(view, pos);
+        }
+        return mListener.onItemLongClick(view, pos);
+    }
+
+    // Whether the point in the item view coordinates is inside the target, walking up to the item view once.
+    private boolean isUnder(View target, View itemView, float x, float y) {
+        float left = 0;
+        float top = 0;
+        View view = target;
+        while (view != itemView) {
+            left += view.getX();
+            top += view.getY();
+            if (!(view.getParent() instanceof View)) {
+                return false;
+            }
+            view = (View) view.getParent();
+        }
+        return x >= left && x <= left + target.getWidth() && y >= top && y <= top + target.getHeight();
+    }
+
+    private int[] obtainTargetIds(RecyclerView.ViewHolder holder) {
+        int viewType = holder.getItemViewType();
+        int[] ids = mTargetIdArray.get(viewType);
+        if (ids == null) {
+            int count = collectTargetIds(holder.itemView, 0, true);
+            ids = Arrays.copyOf(mTmpIds, count);
+            mTargetIdArray.put(viewType, ids);
+        }
+        return ids;
+    }
+
+    private int collectTargetIds(View view, int count, boolean isItemView) {
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0, childCount = viewGroup.getChildCount(); i < childCount && count < MAX_TARGET_COUNT; i++) {
+                count = collectTargetIds(viewGroup.getChildAt(i), count, false);
+            }
+        }
+        if (!isItemView && view.getId() != View.NO_ID && count < MAX_TARGET_COUNT) {
+            mTmpIds[count++] = view.getId();
+        }
+        return count;
+    }
+
+    private static View[] findTargets(View itemView, int[] ids) {
+        View[] targets = new View[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            targets[i] = itemView.findViewById(ids[i]);
+        }
+        return targets;
     }
 
     private boolean onClick(View itemView, float x, float y, int pos, int clickType){
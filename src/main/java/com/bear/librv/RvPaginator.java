@@ -0,0 +1,305 @@
+package com.bear.librv;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Load more pages when an item near the end (or the start) is bound, instead of a scroll listener per page.
+ * Every direction has at most one request in flight, the request is answered by {@link #deliver(int, List, boolean)}
+ * or {@link #deliverError(int)} from any thread, and the page is added on the main thread with one range notification.
+ * An optional footer (a header for the start) is a registered CustomData row, shown while more pages can be loaded
+ * and replaced by the error row when a request fails, a page is inserted in front of it so the footer is not rebound.
+ */
+@SuppressWarnings("rawtypes")
+public class RvPaginator {
+    private static final String TAG = RvLog.RV_LOG_TAG + "-RvPaginator";
+    public static final int DIRECTION_START = -1;
+    public static final int DIRECTION_END = 1;
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_LOADING = 1;
+    private static final int STATE_ERROR = 2;
+    // No more pages in the direction.
+    private static final int STATE_FINISHED = 3;
+    // Empty pages requested in a row before the paginator waits for a bind.
+    private static final int MAX_EMPTY_PAGE_COUNT = 3;
+
+    private final VHAdapter mAdapter;
+    private final OnLoadListener mListener;
+    private int mPrefetchDistance = 5;
+    // Index 0 is the start and 1 is the end.
+    private final boolean[] mEnabled = {false, true};
+    private final int[] mStates = {STATE_FINISHED, STATE_IDLE};
+    private final boolean[] mLoadPosted = new boolean[2];
+    private final int[] mEmptyPageCounts = new int[2];
+    private final CustomData[] mLoadingRows = new CustomData[2];
+    private final CustomData[] mErrorRows = new CustomData[2];
+    // Increased by reset(), the pages of an older generation are dropped.
+    private volatile int mGeneration;
+
+    private final Runnable mLoadStartRunnable = new Runnable() {
+        @Override
+        public void run() {
+            load(DIRECTION_START);
+        }
+    };
+
+    private final Runnable mLoadEndRunnable = new Runnable() {
+        @Override
+        public void run() {
+            load(DIRECTION_END);
+        }
+    };
+
+    public interface OnLoadListener {
+        // Called on the main thread, answer with deliver or deliverError from any thread.
+        void onLoad(RvPaginator paginator, int direction);
+    }
+
+    public RvPaginator(@NonNull VHAdapter adapter, @NonNull OnLoadListener listener) {
+        mAdapter = adapter;
+        mListener = listener;
+        adapter.setPaginator(this);
+    }
+
+    /**
+     * @param prefetchDistance How many items before the end (or the start) a bind requests the next page.
+     */
+    public RvPaginator setPrefetchDistance(int prefetchDistance) {
+        mPrefetchDistance = Math.max(0, prefetchDistance);
+        return this;
+    }
+
+    /**
+     * Only the end loads by default, enable the start for a list which is opened in the middle.
+     */
+    public RvPaginator setLoadStartEnabled(boolean enabled) {
+        setEnabled(DIRECTION_START, enabled);
+        return this;
+    }
+
+    public RvPaginator setLoadEndEnabled(boolean enabled) {
+        setEnabled(DIRECTION_END, enabled);
+        return this;
+    }
+
+    /**
+     * The rows must be registered to the adapter. CustomData equals by its type only, so give the two rows distinct
+     * types, otherwise they are equal for {@link DataManager#remove(Object...)}, update and DiffUtil, and only the
+     * paginator, which compares them by identity, tells them apart.
+     */
+    public RvPaginator setFooter(CustomData loadingRow, CustomData errorRow) {
+        mLoadingRows[index(DIRECTION_END)] = loadingRow;
+        mErrorRows[index(DIRECTION_END)] = errorRow;
+        return this;
+    }
+
+    /**
+     * Same as {@link #setFooter(CustomData, CustomData)}, the header rows need distinct types from the footer rows too.
+     */
+    public RvPaginator setHeader(CustomData loadingRow, CustomData errorRow) {
+        mLoadingRows[index(DIRECTION_START)] = loadingRow;
+        mErrorRows[index(DIRECTION_START)] = errorRow;
+        return this;
+    }
+
+    /**
+     * Deliver the page of a request, the list must not be changed after it is delivered.
+     *
+     * @param hasMore False if there is no more page in the direction.
+     */
+    public void deliver(final int direction, final List page, final boolean hasMore) {
+        final int generation = mGeneration;
+        if (RvThreads.isMainThread()) {
+            onDelivered(direction, page, hasMore, generation);
+            return;
+        }
+        RvThreads.runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                onDelivered(direction, page, hasMore, generation);
+            }
+        });
+    }
+
+    public void deliverError(final int direction) {
+        final int generation = mGeneration;
+        if (RvThreads.isMainThread()) {
+            onError(direction, generation);
+            return;
+        }
+        RvThreads.runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                onError(direction, generation);
+            }
+        });
+    }
+
+    /**
+     * Request the page again after an error, usually from the click of the error row.
+     */
+    public void retry(int direction) {
+        int index = index(direction);
+        if (mStates[index] == STATE_ERROR) {
+            mStates[index] = STATE_IDLE;
+            load(direction);
+        }
+    }
+
+    /**
+     * Call after the data is replaced, like a refresh by {@link DataManager#setData(List)},
+     * the answers of the requests in flight are dropped and both directions can load again.
+     */
+    public void reset() {
+        mGeneration++;
+        for (int direction = DIRECTION_START; direction <= DIRECTION_END; direction += 2) {
+            int index = index(direction);
+            mEmptyPageCounts[index] = 0;
+            if (mEnabled[index]) {
+                removeRow(direction);
+                mStates[index] = STATE_IDLE;
+            }
+        }
+    }
+
+    public boolean isLoading(int direction) {
+        return mStates[index(direction)] == STATE_LOADING;
+    }
+
+    public void release() {
+        mGeneration++;
+        mAdapter.setPaginator(null);
+    }
+
+    // Called by VHAdapter for every full bind, it may be inside a layout so the load is posted.
+    void onBind(int position) {
+        DataManager dataManager = mAdapter.getDataManager();
+        if (dataManager == null) {
+            return;
+        }
+        if (position >= dataManager.size() - 1 - mPrefetchDistance) {
+            postLoad(DIRECTION_END);
+        }
+        if (position <= mPrefetchDistance) {
+            postLoad(DIRECTION_START);
+        }
+    }
+
+    private void postLoad(int direction) {
+        int index = index(direction);
+        if (mStates[index] != STATE_IDLE || mLoadPosted[index]) {
+            return;
+        }
+        mLoadPosted[index] = true;
+        RvThreads.runOnMain(direction == DIRECTION_END ? mLoadEndRunnable : mLoadStartRunnable);
+    }
+
+    private void load(int direction) {
+        int index = index(direction);
+        mLoadPosted[index] = false;
+        if (mStates[index] != STATE_IDLE || mAdapter.getDataManager() == null) {
+            return;
+        }
+        mStates[index] = STATE_LOADING;
+        showRow(direction, mLoadingRows[index]);
+        mListener.onLoad(this, direction);
+    }
+
+    private void onDelivered(int direction, List page, boolean hasMore, int generation) {
+        int index = index(direction);
+        DataManager dataManager = mAdapter.getDataManager();
+        if (generation != mGeneration || mStates[index] != STATE_LOADING || dataManager == null) {
+            RvLog.w(TAG, "deliver: no request in flight, direction = " + direction);
+            return;
+        }
+        mStates[index] = hasMore ? STATE_IDLE : STATE_FINISHED;
+        if (!hasMore) {
+            removeRow(direction);
+        }
+        if (page != null && !page.isEmpty()) {
+            mEmptyPageCounts[index] = 0;
+            // In front of the footer, or behind the header.
+            if (direction == DIRECTION_END) {
+                dataManager.add(dataManager.size() - (isRowShown(direction) ? 1 : 0), page);
+            } else {
+                dataManager.add(isRowShown(direction) ? 1 : 0, page);
+            }
+        } else if (hasMore) {
+            // Nothing new is bound by an empty page, so the next one is requested at once,
+            // a source which keeps answering empty pages waits for a bind near the edge instead of looping.
+            if (++mEmptyPageCounts[index] < MAX_EMPTY_PAGE_COUNT) {
+                postLoad(direction);
+            } else {
+                RvLog.w(TAG, "deliver: too many empty pages, direction = " + direction);
+                mEmptyPageCounts[index] = 0;
+                removeRow(direction);
+            }
+        }
+    }
+
+    private void onError(int direction, int generation) {
+        int index = index(direction);
+        if (generation != mGeneration || mStates[index] != STATE_LOADING || mAdapter.getDataManager() == null) {
+            return;
+        }
+        mStates[index] = STATE_ERROR;
+        showRow(direction, mErrorRows[index]);
+    }
+
+    private void setEnabled(int direction, boolean enabled) {
+        int index = index(direction);
+        if (mEnabled[index] == enabled) {
+            return;
+        }
+        mEnabled[index] = enabled;
+        if (enabled) {
+            mStates[index] = STATE_IDLE;
+        } else {
+            removeRow(direction);
+            mStates[index] = STATE_FINISHED;
+        }
+    }
+
+    // Show the row at the edge of the direction, replacing the other row of the direction.
+    private void showRow(int direction, CustomData row) {
+        DataManager dataManager = mAdapter.getDataManager();
+        if (row == null) {
+            removeRow(direction);
+            return;
+        }
+        int position = direction == DIRECTION_END ? dataManager.size() - 1 : 0;
+        if (isRowShown(direction)) {
+            if (dataManager.get(position) != row) {
+                dataManager.update(position, row);
+            }
+        } else if (direction == DIRECTION_END) {
+            dataManager.addLast(row);
+        } else {
+            dataManager.addFirst(row);
+        }
+    }
+
+    private void removeRow(int direction) {
+        DataManager dataManager = mAdapter.getDataManager();
+        if (dataManager != null && isRowShown(direction)) {
+            dataManager.remove(direction == DIRECTION_END ? dataManager.size() - 1 : 0);
+        }
+    }
+
+    // The row is checked by identity, a refresh which replaces the data also removes it.
+    private boolean isRowShown(int direction) {
+        DataManager dataManager = mAdapter.getDataManager();
+        int size = dataManager.size();
+        if (size == 0) {
+            return false;
+        }
+        int index = index(direction);
+        Object row = dataManager.get(direction == DIRECTION_END ? size - 1 : 0);
+        return row != null && (row == mLoadingRows[index] || row == mErrorRows[index]);
+    }
+
+    private static int index(int direction) {
+        return direction == DIRECTION_END ? 1 : 0;
+    }
+}
@@ -0,0 +1,290 @@
+package com.bear.librv;
+
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.StaggeredGridLayoutManager;
+
+/**
+ * Scroll engine backed by the measured size of every position, see {@link ItemSizeCache}.
+ * The children are measured whenever the RecyclerView scrolls or lays out, so the estimates get more accurate
+ * the more of the list has been seen, and unmeasured positions count as the average size.
+ * In grids the sizes are divided by the span count, full span items make that an approximation.
+ * <p>
+ * The scrollbar of the RecyclerView uses the average item size, a LayoutManager can delegate it instead:
+ * <pre>
+ * public int computeVerticalScrollOffset(RecyclerView.State state) {
+ *     return RvUtil.getScroller(recyclerView).computeScrollOffset();
+ * }
+ * </pre>
+ * and the same for computeVerticalScrollRange and computeVerticalScrollExtent, or the horizontal ones.
+ */
+public class RvScroller {
+    private static final long FRAME_TIME = 16L;
+    // A step longer than this many viewports jumps by position instead of laying out every item in between.
+    private static final int MAX_SCROLL_BY_VIEWPORTS = 2;
+
+    private final RecyclerView mRecyclerView;
+    private final ItemSizeCache mItemSizeCache = new ItemSizeCache();
+    private RecyclerView.Adapter<?> mAdapter;
+    private int mTargetPosition = RecyclerView.NO_POSITION;
+    private int mTargetOffset;
+    private long mDeadline;
+
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            measureChildren();
+        }
+
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                stop();
+            }
+        }
+    };
+
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onFrame();
+        }
+    };
+
+    public RvScroller(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        mRecyclerView.addOnScrollListener(mScrollListener);
+    }
+
+    public void release() {
+        stop();
+        mRecyclerView.removeOnScrollListener(mScrollListener);
+        observeAdapter(null);
+        if (mRecyclerView.getTag(R.id.librv_scroller) == this) {
+            mRecyclerView.setTag(R.id.librv_scroller, null);
+        }
+    }
+
+    /**
+     * @return The estimated scroll offset of the whole content, like computeVerticalScrollOffset but per item size.
+     */
+    public int computeScrollOffset() {
+        measureChildren();
+        return (int) currentOffset();
+    }
+
+    /**
+     * @return The estimated size of the whole content including the paddings.
+     */
+    public int computeScrollRange() {
+        measureChildren();
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return 0;
+        }
+        int padding = isVertical(layoutManager) ? layoutManager.getPaddingTop() + layoutManager.getPaddingBottom()
+                : layoutManager.getPaddingLeft() + layoutManager.getPaddingRight();
+        return (int) (mItemSizeCache.prefix(mItemSizeCache.itemCount()) / laneCount(layoutManager)) + padding;
+    }
+
+    /**
+     * @return The size of the list including the paddings, so the offset plus the extent reaches the range at the end.
+     */
+    public int computeScrollExtent() {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return 0;
+        }
+        return isVertical(layoutManager) ? layoutManager.getHeight() : layoutManager.getWidth();
+    }
+
+    /**
+     * @return The estimated distance to scroll until the start of the position is at the start of the list.
+     */
+    public int estimateDistanceTo(int position) {
+        measureChildren();
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return 0;
+        }
+        View target = layoutManager.findViewByPosition(position);
+        if (target != null) {
+            return decoratedStart(layoutManager, target) - paddingStart(layoutManager);
+        }
+        return (int) (mItemSizeCache.prefix(position) / laneCount(layoutManager) - currentOffset());
+    }
+
+    /**
+     * Smooth scroll until the start of the position is at the start of the list, finishing within maxDuration.
+     * The step of every frame is computed again from the measured sizes, a long distance jumps by position,
+     * and the scroll ends exactly on the position once it is laid out, or by jumping to it at the deadline.
+     */
+    public void smoothScrollToPosition(int position, long maxDuration) {
+        smoothScrollToPosition(position, 0, maxDuration);
+    }
+
+    /**
+     * Like {@link #smoothScrollToPosition(int, long)}, but the start of the position ends offset pixels
+     * after the start of the list, the same as LinearLayoutManager.scrollToPositionWithOffset.
+     */
+    public void smoothScrollToPosition(int position, int offset, long maxDuration) {
+        stop();
+        if (mRecyclerView.getLayoutManager() == null || position < 0 || position >= mRecyclerView.getLayoutManager().getItemCount()) {
+            return;
+        }
+        mTargetPosition = position;
+        mTargetOffset = offset;
+        mDeadline = SystemClock.uptimeMillis() + Math.max(FRAME_TIME, maxDuration);
+        mRecyclerView.postOnAnimation(mFrameRunnable);
+    }
+
+    public void stop() {
+        if (mTargetPosition != RecyclerView.NO_POSITION) {
+            mTargetPosition = RecyclerView.NO_POSITION;
+            mRecyclerView.removeCallbacks(mFrameRunnable);
+        }
+    }
+
+    public boolean isScrolling() {
+        return mTargetPosition != RecyclerView.NO_POSITION;
+    }
+
+    private void onFrame() {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (mTargetPosition == RecyclerView.NO_POSITION || layoutManager == null) {
+            return;
+        }
+        if (mTargetPosition >= layoutManager.getItemCount()) {
+            stop();
+            return;
+        }
+        measureChildren();
+        boolean vertical = isVertical(layoutManager);
+        View target = layoutManager.findViewByPosition(mTargetPosition);
+        int distance = estimateDistanceTo(mTargetPosition) - mTargetOffset;
+        long remainingTime = mDeadline - SystemClock.uptimeMillis();
+        int direction = distance > 0 ? 1 : -1;
+        boolean canScroll = vertical ? mRecyclerView.canScrollVertically(direction) : mRecyclerView.canScrollHorizontally(direction);
+        if (distance == 0 || !canScroll) {
+            stop();
+            return;
+        }
+        if (remainingTime <= FRAME_TIME) {
+            if (target != null) {
+                scrollBy(vertical, distance);
+            } else {
+                RvUtil.scrollToPos(mRecyclerView, mTargetPosition, false, mTargetOffset);
+            }
+            stop();
+            return;
+        }
+        // Ease out, a constant share of the remaining distance per remaining frame.
+        int step = (int) (distance * Math.min(1F, 2F * FRAME_TIME / remainingTime));
+        if (step == 0) {
+            step = direction;
+        }
+        int viewport = vertical ? layoutManager.getHeight() : layoutManager.getWidth();
+        if (target == null && Math.abs(step) > MAX_SCROLL_BY_VIEWPORTS * viewport) {
+            jumpTo(layoutManager, currentOffset() + step);
+        } else {
+            scrollBy(vertical, step);
+        }
+        mRecyclerView.postOnAnimation(mFrameRunnable);
+    }
+
+    private void scrollBy(boolean vertical, int distance) {
+        if (vertical) {
+            mRecyclerView.scrollBy(0, distance);
+        } else {
+            mRecyclerView.scrollBy(distance, 0);
+        }
+    }
+
+    private void jumpTo(RecyclerView.LayoutManager layoutManager, long offset) {
+        int lanes = laneCount(layoutManager);
+        int position = mItemSizeCache.positionAt(offset * lanes);
+        int remainder = (int) (offset - mItemSizeCache.prefix(position) / lanes);
+        RvUtil.scrollToPos(mRecyclerView, position, false, -remainder);
+    }
+
+    // Estimated offset of the content start from the list start.
+    private long currentOffset() {
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return 0;
+        }
+        View firstChild = null;
+        int firstPosition = Integer.MAX_VALUE;
+        for (int i = 0, count = layoutManager.getChildCount(); i < count; i++) {
+            View child = layoutManager.getChildAt(i);
+            int position = layoutManager.getPosition(child);
+            if (position >= 0 && position < firstPosition) {
+                firstPosition = position;
+                firstChild = child;
+            }
+        }
+        if (firstChild == null) {
+            return 0;
+        }
+        return mItemSizeCache.prefix(firstPosition) / laneCount(layoutManager)
+                + paddingStart(layoutManager) - decoratedStart(layoutManager, firstChild);
+    }
+
+    private void measureChildren() {
+        observeAdapter(mRecyclerView.getAdapter());
+        RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        int itemCount = layoutManager.getItemCount();
+        if (mItemSizeCache.itemCount() != itemCount) {
+            mItemSizeCache.reset(itemCount);
+        }
+        boolean vertical = isVertical(layoutManager);
+        for (int i = 0, count = layoutManager.getChildCount(); i < count; i++) {
+            View child = layoutManager.getChildAt(i);
+            int size = vertical ? layoutManager.getDecoratedBottom(child) - layoutManager.getDecoratedTop(child)
+                    : layoutManager.getDecoratedRight(child) - layoutManager.getDecoratedLeft(child);
+            mItemSizeCache.put(layoutManager.getPosition(child), size);
+        }
+    }
+
+    private void observeAdapter(RecyclerView.Adapter<?> adapter) {
+        if (adapter == mAdapter) {
+            return;
+        }
+        if (mAdapter != null) {
+            mAdapter.unregisterAdapterDataObserver(mItemSizeCache);
+        }
+        mAdapter = adapter;
+        mItemSizeCache.reset(adapter != null ? adapter.getItemCount() : 0);
+        if (adapter != null) {
+            adapter.registerAdapterDataObserver(mItemSizeCache);
+        }
+    }
+
+    private static boolean isVertical(RecyclerView.LayoutManager layoutManager) {
+        return layoutManager.canScrollVertically();
+    }
+
+    private static int laneCount(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof GridLayoutManager) {
+            return Math.max(1, ((GridLayoutManager) layoutManager).getSpanCount());
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return Math.max(1, ((StaggeredGridLayoutManager) layoutManager).getSpanCount());
+        }
+        return 1;
+    }
+
+    private static int paddingStart(RecyclerView.LayoutManager layoutManager) {
+        return isVertical(layoutManager) ? layoutManager.getPaddingTop() : layoutManager.getPaddingLeft();
+    }
+
+    private static int decoratedStart(RecyclerView.LayoutManager layoutManager, View child) {
+        return isVertical(layoutManager) ? layoutManager.getDecoratedTop(child) : layoutManager.getDecoratedLeft(child);
+    }
+}
@@ -0,0 +1,53 @@
+package com.bear.librv;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Shared threads of librv, the background executor is created lazily.
+ */
+final class RvThreads {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static volatile ExecutorService sBackgroundExecutor;
+
+    private RvThreads() {
+
+    }
+
+    static void runOnMain(Runnable runnable) {
+        MAIN_HANDLER.post(runnable);
+    }
+
+    static void runOnBackground(Runnable runnable) {
+        backgroundExecutor().execute(runnable);
+    }
+
+    static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    private static ExecutorService backgroundExecutor() {
+        if (sBackgroundExecutor == null) {
+            synchronized (RvThreads.class) {
+                if (sBackgroundExecutor == null) {
+                    sBackgroundExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+                        private int mIndex;
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "librv-background-" + mIndex++);
+                            thread.setPriority(Thread.MIN_PRIORITY);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return sBackgroundExecutor;
+    }
+}
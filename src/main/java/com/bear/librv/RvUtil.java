@@ -19,21 +19,36 @@ import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 //8.RecyclerView.canScrollVertically()原理基于7，因此高度变化的item判断也是不准确的。
 //9.RecyclerView.computeVerticalScrollExtent获取到的是去除掉padding的大小，见ScrollBarHelper。
 //10.scrollBy间隔太多会有卡顿问题。
+//11.长距离平滑滚动和不依赖平均值的滚动偏移见RvScroller，基于每个位置测量过的大小估算，getScroller获取RecyclerView共用的实例。
+//12.曝光统计见RvVisibilityTracker，跟随item attach、detach和滚动增量计算可见比例，不需要每次比较可见范围。
 public class RvUtil {
     private static final String TAG = "RvUtil";
+    // The maximal duration of a smooth scroll farther than limitRange, see RvScroller.
+    private static final long LONG_SCROLL_DURATION = 500L;
+    private static int[] sSpanPositions;
 
+    /**
+     * The RvScroller shared by the helpers of the RecyclerView, created on the first call and kept as a tag,
+     * a LayoutManager can also delegate its scrollbar to it.
+     */
+    public static RvScroller getScroller(RecyclerView rv) {
+        RvScroller scroller = (RvScroller) rv.getTag(R.id.librv_scroller);
+        if (scroller == null) {
+            scroller = new RvScroller(rv);
+            rv.setTag(R.id.librv_scroller, scroller);
+        }
+        return scroller;
+    }
+
+    /**
+     * Farther than limitRange the scroll is done by RvScroller, and ends with the offset like scrollToPositionWithOffset.
+     */
     public static void scrollToTop(final RecyclerView rv, int limitRange, int offset){
         int first = findFirstVisibleItemPosition(rv);
         if(first < limitRange){
             scrollToTop(rv, true);
         }else {
-            scrollToPos(rv, limitRange, false, offset);
-            rv.post(new Runnable() {
-                @Override
-                public void run() {
-                    scrollToTop(rv, true);
-                }
-            });
+            longScrollToPos(rv, 0, offset);
         }
     }
 
@@ -41,19 +56,16 @@ public class RvUtil {
         scrollToPos(rv, 0, smooth, 0);
     }
 
+    /**
+     * Farther than limitRange the scroll is done by RvScroller, and ends with the offset like scrollToPositionWithOffset.
+     */
     public static void scrollToBottom(final RecyclerView rv, int limitRange, int offset){
         int last = findLastVisibleItemPosition(rv);
         int itemCount = rv.getLayoutManager().getItemCount();
         if(last >= itemCount - limitRange){
             scrollToBottom(rv, true);
         }else {
-            scrollToPos(rv, itemCount - limitRange, false, offset);
-            rv.post(new Runnable() {
-                @Override
-                public void run() {
-                    scrollToBottom(rv, true);
-                }
-            });
+            longScrollToPos(rv, itemCount - 1, offset);
         }
     }
 
@@ -113,7 +125,7 @@ public class RvUtil {
         if (manager instanceof LinearLayoutManager) {
             return ((LinearLayoutManager) manager).findFirstVisibleItemPosition();
         } else if (manager instanceof StaggeredGridLayoutManager) {
-            int[] info = ((StaggeredGridLayoutManager) manager).findFirstVisibleItemPositions(null);
+            int[] info = ((StaggeredGridLayoutManager) manager).findFirstVisibleItemPositions(spanPositions((StaggeredGridLayoutManager) manager));
             if (info == null || info.length <= 0) {
                 return -1;
             }
@@ -127,7 +139,7 @@ public class RvUtil {
         if (manager instanceof LinearLayoutManager) {
             return ((LinearLayoutManager) manager).findLastVisibleItemPosition();
         } else if (manager instanceof StaggeredGridLayoutManager) {
-            int[] into = ((StaggeredGridLayoutManager) manager).findLastVisibleItemPositions(null);
+            int[] into = ((StaggeredGridLayoutManager) manager).findLastVisibleItemPositions(spanPositions((StaggeredGridLayoutManager) manager));
             if (into == null || into.length <= 0) {
                 return -1;
             }
@@ -139,7 +151,7 @@ public class RvUtil {
     public static int findFirstCompletelyVisibleItemPosition(RecyclerView rv){
         RecyclerView.LayoutManager manager = rv.getLayoutManager();
         if (manager instanceof StaggeredGridLayoutManager) {
-            int[] info = ((StaggeredGridLayoutManager) manager).findFirstCompletelyVisibleItemPositions(null);
+            int[] info = ((StaggeredGridLayoutManager) manager).findFirstCompletelyVisibleItemPositions(spanPositions((StaggeredGridLayoutManager) manager));
             if (info == null || info.length <= 0) {
                 return -1;
             }
@@ -153,7 +165,7 @@ public class RvUtil {
     public static int findLastCompletelyVisibleItemPosition(RecyclerView rv){
         RecyclerView.LayoutManager manager = rv.getLayoutManager();
         if (manager instanceof StaggeredGridLayoutManager) {
-            int[] info = ((StaggeredGridLayoutManager) manager).findLastCompletelyVisibleItemPositions(null);
+            int[] info = ((StaggeredGridLayoutManager) manager).findLastCompletelyVisibleItemPositions(spanPositions((StaggeredGridLayoutManager) manager));
             if (info == null || info.length <= 0) {
                 return -1;
             }
@@ -215,33 +227,35 @@ public class RvUtil {
         Log.d(TAG, "test: rv.canScrollVertically(-1) = " + rv.canScrollVertically(-1));
     }
 
+    /**
+     * Farther than limitRange the scroll is done by RvScroller, and ends with the offset like scrollToPositionWithOffset.
+     */
     public static void scrollToPos(final RecyclerView rv, final int pos, int limitRange, final int offset){
         int first = findFirstVisibleItemPosition(rv);
         int diff = Math.abs(pos - first);
         if(diff <= limitRange){
             scrollToPos(rv, pos, true, offset);
         }else {
-            if(first > pos){
-                scrollToPos(rv, pos + limitRange, false, offset);
-                rv.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        scrollToPos(rv, pos, true, offset);
-                    }
-                });
-            }else {
-                scrollToPos(rv, pos - limitRange, false, offset);
-                rv.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        scrollToPos(rv, pos, true, offset);
-                    }
-                });
-            }
+            longScrollToPos(rv, pos, offset);
+        }
+    }
+
+    // Instead of jumping near the position and smooth scrolling the rest, which shows the jump.
+    private static void longScrollToPos(RecyclerView rv, int pos, int offset) {
+        rv.stopScroll();
+        getScroller(rv).smoothScrollToPosition(pos, offset, LONG_SCROLL_DURATION);
+    }
+
+    // Reused by the StaggeredGridLayoutManager lookups, which are only called on the main thread.
+    private static int[] spanPositions(StaggeredGridLayoutManager manager) {
+        int spanCount = manager.getSpanCount();
+        if (sSpanPositions == null || sSpanPositions.length != spanCount) {
+            sSpanPositions = new int[spanCount];
         }
+        return sSpanPositions;
     }
 
-    private static int max(int ... array) {
+    private static int max(int[] array) {
         int max = array[0];
         for(int i = 1; i < array.length; ++i) {
             if (array[i] > max) {
@@ -251,7 +265,7 @@ public class RvUtil {
         return max;
     }
 
-    private static int min(int ... array) {
+    private static int min(int[] array) {
         int min = array[0];
         for(int i = 1; i < array.length; ++i) {
             if (array[i] < min) {
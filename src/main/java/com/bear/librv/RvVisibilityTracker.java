@@ -0,0 +1,289 @@
+package com.bear.librv;
+
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Track the visible area of the attached items instead of diffing the visible ranges of RvUtil on every scroll.
+ * The attached children are followed by the attach and detach callbacks, a scroll or a layout only measures them
+ * against the visible rect of the RecyclerView, which neither allocates nor asks the LayoutManager.
+ * An item enters when its visible fraction reaches the threshold and exits when it falls below it or is detached,
+ * it dwells once it stays visible for the dwell time. Items are keyed by their stable id if the adapter has stable ids,
+ * otherwise by their position, a holder whose key changes while visible exits with the old key and enters with the new one.
+ */
+public class RvVisibilityTracker {
+    private final RecyclerView mRecyclerView;
+    private final OnVisibilityListener mListener;
+    private final ArrayList<Entry> mEntries = new ArrayList<>();
+    private final ArrayDeque<Entry> mEntryPool = new ArrayDeque<>();
+    private final Rect mVisibleRect = new Rect();
+    private float mVisibleThreshold = 0.5F;
+    private long mDwellTime = 1000L;
+    private long mThrottleTime = 100L;
+    private long mLastUpdateTime;
+    private boolean mUpdatePending;
+    private boolean mActive = true;
+
+    private final Runnable mUpdateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mUpdatePending = false;
+            update();
+        }
+    };
+
+    private final RecyclerView.OnChildAttachStateChangeListener mAttachListener = new RecyclerView.OnChildAttachStateChangeListener() {
+        @Override
+        public void onChildViewAttachedToWindow(@NonNull View view) {
+            Entry entry = mEntryPool.poll();
+            if (entry == null) {
+                entry = new Entry();
+            }
+            entry.mView = view;
+            mEntries.add(entry);
+            // Called inside the layout before the child is laid out, a recycled view still has its old bounds,
+            // so it is always measured after the layout.
+            postUpdate();
+        }
+
+        @Override
+        public void onChildViewDetachedFromWindow(@NonNull View view) {
+            for (int i = mEntries.size() - 1; i >= 0; i--) {
+                Entry entry = mEntries.get(i);
+                if (entry.mView == view) {
+                    exit(entry, SystemClock.uptimeMillis());
+                    mEntries.remove(i);
+                    entry.mView = null;
+                    mEntryPool.add(entry);
+                    return;
+                }
+            }
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            scheduleUpdate();
+        }
+
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                // The resting position is always measured without waiting for the throttle.
+                mRecyclerView.removeCallbacks(mUpdateRunnable);
+                mUpdatePending = false;
+                update();
+            }
+        }
+    };
+
+    public static class OnVisibilityListener {
+        // id is RecyclerView.NO_ID if the adapter has no stable ids.
+        public void onItemEnter(int position, long id) {
+
+        }
+
+        public void onItemDwell(int position, long id) {
+
+        }
+
+        public void onItemExit(int position, long id, long visibleTime) {
+
+        }
+    }
+
+    public RvVisibilityTracker(@NonNull RecyclerView recyclerView, @NonNull OnVisibilityListener listener) {
+        mRecyclerView = recyclerView;
+        mListener = listener;
+        for (int i = 0, count = recyclerView.getChildCount(); i < count; i++) {
+            mAttachListener.onChildViewAttachedToWindow(recyclerView.getChildAt(i));
+        }
+        recyclerView.addOnChildAttachStateChangeListener(mAttachListener);
+        recyclerView.addOnScrollListener(mScrollListener);
+    }
+
+    /**
+     * @param visibleThreshold The visible fraction of the item area to enter, in (0, 1].
+     */
+    public RvVisibilityTracker setVisibleThreshold(float visibleThreshold) {
+        mVisibleThreshold = Math.max(Float.MIN_VALUE, Math.min(1F, visibleThreshold));
+        return this;
+    }
+
+    /**
+     * @param dwellTime How long an item stays visible before onItemDwell, 0 dwells at once.
+     */
+    public RvVisibilityTracker setDwellTime(long dwellTime) {
+        mDwellTime = Math.max(0L, dwellTime);
+        return this;
+    }
+
+    /**
+     * @param throttleTime The minimal interval between two updates while scrolling, the last scroll is always measured.
+     */
+    public RvVisibilityTracker setThrottleTime(long throttleTime) {
+        mThrottleTime = Math.max(0L, throttleTime);
+        return this;
+    }
+
+    /**
+     * Exit all items when the page is paused or hidden, and enter the visible ones again when it comes back.
+     */
+    public void setActive(boolean active) {
+        if (mActive == active) {
+            return;
+        }
+        mActive = active;
+        if (active) {
+            update();
+        } else {
+            exitAll();
+        }
+    }
+
+    public void release() {
+        exitAll();
+        mRecyclerView.removeCallbacks(mUpdateRunnable);
+        mUpdatePending = false;
+        mRecyclerView.removeOnChildAttachStateChangeListener(mAttachListener);
+        mRecyclerView.removeOnScrollListener(mScrollListener);
+        for (int i = 0, size = mEntries.size(); i < size; i++) {
+            mEntries.get(i).mView = null;
+        }
+        mEntries.clear();
+        mEntryPool.clear();
+    }
+
+    /**
+     * Measure the attached items now, also needed after a change which does not scroll, like a translation.
+     */
+    public void update() {
+        long now = SystemClock.uptimeMillis();
+        mLastUpdateTime = now;
+        if (!mActive) {
+            return;
+        }
+        boolean shown = mRecyclerView.isShown() && mRecyclerView.getLocalVisibleRect(mVisibleRect);
+        RecyclerView.Adapter<?> adapter = mRecyclerView.getAdapter();
+        boolean stableIds = adapter != null && adapter.hasStableIds();
+        boolean dwellPending = false;
+        for (int i = 0, size = mEntries.size(); i < size; i++) {
+            Entry entry = mEntries.get(i);
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(entry.mView);
+            int position = holder != null ? holder.getAbsoluteAdapterPosition() : RecyclerView.NO_POSITION;
+            long id = stableIds && holder != null ? holder.getItemId() : RecyclerView.NO_ID;
+            boolean visible = shown && position != RecyclerView.NO_POSITION
+                    && visibleFraction(entry.mView) >= mVisibleThreshold;
+            if (entry.mVisible && (!visible || (stableIds ? id != entry.mId : position != entry.mPosition))) {
+                exit(entry, now);
+            }
+            if (visible && !entry.mVisible) {
+                entry.mVisible = true;
+                entry.mDwelled = false;
+                entry.mPosition = position;
+                entry.mId = id;
+                entry.mEnterTime = now;
+                mListener.onItemEnter(position, id);
+            }
+            if (entry.mVisible) {
+                // A move keeps the stable id but not the position.
+                entry.mPosition = position;
+                if (!entry.mDwelled) {
+                    if (now - entry.mEnterTime >= mDwellTime) {
+                        entry.mDwelled = true;
+                        mListener.onItemDwell(position, id);
+                    } else {
+                        dwellPending = true;
+                    }
+                }
+            }
+        }
+        if (dwellPending && !mUpdatePending) {
+            // Nothing may scroll until the dwell time is reached.
+            mUpdatePending = true;
+            mRecyclerView.postDelayed(mUpdateRunnable, Math.max(mThrottleTime, 16L));
+        }
+    }
+
+    private void scheduleUpdate() {
+        if (mUpdatePending) {
+            return;
+        }
+        long delay = mLastUpdateTime + mThrottleTime - SystemClock.uptimeMillis();
+        if (delay <= 0) {
+            update();
+        } else {
+            mUpdatePending = true;
+            mRecyclerView.postDelayed(mUpdateRunnable, delay);
+        }
+    }
+
+    // Like scheduleUpdate, but never measures synchronously.
+    private void postUpdate() {
+        if (mUpdatePending) {
+            return;
+        }
+        mUpdatePending = true;
+        long delay = mLastUpdateTime + mThrottleTime - SystemClock.uptimeMillis();
+        mRecyclerView.postDelayed(mUpdateRunnable, Math.max(0L, delay));
+    }
+
+    private void exitAll() {
+        long now = SystemClock.uptimeMillis();
+        for (int i = 0, size = mEntries.size(); i < size; i++) {
+            exit(mEntries.get(i), now);
+        }
+    }
+
+    private void exit(Entry entry, long now) {
+        if (!entry.mVisible) {
+            return;
+        }
+        entry.mVisible = false;
+        mListener.onItemExit(entry.mPosition, entry.mId, now - entry.mEnterTime);
+    }
+
+    // Fraction of the child area inside the visible rect of the RecyclerView, translations included.
+    private float visibleFraction(View child) {
+        int width = child.getWidth();
+        int height = child.getHeight();
+        if (width <= 0 || height <= 0 || child.getVisibility() != View.VISIBLE) {
+            return 0F;
+        }
+        int left = child.getLeft() + (int) child.getTranslationX();
+        int top = child.getTop() + (int) child.getTranslationY();
+        int visibleLeft = mVisibleRect.left;
+        int visibleTop = mVisibleRect.top;
+        int visibleRight = mVisibleRect.right;
+        int visibleBottom = mVisibleRect.bottom;
+        if (mRecyclerView.getClipToPadding()) {
+            visibleLeft = Math.max(visibleLeft, mRecyclerView.getPaddingLeft());
+            visibleTop = Math.max(visibleTop, mRecyclerView.getPaddingTop());
+            visibleRight = Math.min(visibleRight, mRecyclerView.getWidth() - mRecyclerView.getPaddingRight());
+            visibleBottom = Math.min(visibleBottom, mRecyclerView.getHeight() - mRecyclerView.getPaddingBottom());
+        }
+        long visibleWidth = Math.min(left + width, visibleRight) - Math.max(left, visibleLeft);
+        long visibleHeight = Math.min(top + height, visibleBottom) - Math.max(top, visibleTop);
+        if (visibleWidth <= 0 || visibleHeight <= 0) {
+            return 0F;
+        }
+        return (float) (visibleWidth * visibleHeight) / ((long) width * height);
+    }
+
+    private static final class Entry {
+        private View mView;
+        private boolean mVisible;
+        private boolean mDwelled;
+        private int mPosition = RecyclerView.NO_POSITION;
+        private long mId = RecyclerView.NO_ID;
+        private long mEnterTime;
+    }
+}
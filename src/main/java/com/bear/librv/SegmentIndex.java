@@ -0,0 +1,276 @@
+package com.bear.librv;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted index of the Cursor segments inside the DataManager list.
+ * Every Cursor takes one slot in the raw list but getCount() positions in the adapter,
+ * so a position is resolved by binary searching the segment starts, which is O(log k) and allocation free.
+ * The index is updated incrementally on insert and remove instead of being rebuilt.
+ */
+@SuppressWarnings("rawtypes")
+final class SegmentIndex {
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int mSegmentCount;
+    // Index of the Cursor in the raw list.
+    private int[] mRawIndexes = new int[DEFAULT_CAPACITY];
+    // Adapter position of the first Cursor row.
+    private int[] mStarts = new int[DEFAULT_CAPACITY];
+    private int[] mLengths = new int[DEFAULT_CAPACITY];
+    private Cursor[] mCursors = new Cursor[DEFAULT_CAPACITY];
+    // Only exists for the Cursor added with a CursorRowMapper.
+    private CursorRowCache[] mRowCaches = new CursorRowCache[DEFAULT_CAPACITY];
+    // Sum of (length - 1) over all segments, adapter size = raw size + mExtraSize.
+    private int mExtraSize;
+
+    int extraSize() {
+        return mExtraSize;
+    }
+
+    int segmentCount() {
+        return mSegmentCount;
+    }
+
+    boolean isEmpty() {
+        return mSegmentCount == 0;
+    }
+
+    Cursor cursorAt(int segment) {
+        return mCursors[segment];
+    }
+
+    CursorRowCache rowCacheAt(int segment) {
+        return mRowCaches[segment];
+    }
+
+    int startAt(int segment) {
+        return mStarts[segment];
+    }
+
+    int lengthAt(int segment) {
+        return mLengths[segment];
+    }
+
+    int rawIndexAt(int segment) {
+        return mRawIndexes[segment];
+    }
+
+    int indexOfCursor(Cursor cursor) {
+        for (int i = 0; i < mSegmentCount; i++) {
+            if (mCursors[i] == cursor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The segment which contains the position, or -1 if the position is not a Cursor row.
+     */
+    int segmentOf(int position) {
+        int segment = floorByStart(position);
+        if (segment >= 0 && position < mStarts[segment] + mLengths[segment]) {
+            return segment;
+        }
+        return -1;
+    }
+
+    /**
+     * Convert an adapter position of a non Cursor row to the raw list index.
+     * A position equal to the start of a Cursor or to the adapter size is treated as an insert point.
+     * @return The raw index, or -1 if the position is in the middle of a Cursor.
+     */
+    int toRawIndex(int position) {
+        int segment = floorByStart(position);
+        if (segment < 0) {
+            return position;
+        }
+        int start = mStarts[segment];
+        if (position == start) {
+            return mRawIndexes[segment];
+        }
+        int end = start + mLengths[segment];
+        if (position < end) {
+            return -1;
+        }
+        return position - end + 1 + mRawIndexes[segment];
+    }
+
+    /**
+     * Convert a raw list index to the adapter position.
+     */
+    int toPosition(int rawIndex) {
+        int segment = floorByRawIndex(rawIndex - 1);
+        if (segment < 0) {
+            return rawIndex;
+        }
+        return rawIndex - mRawIndexes[segment] - 1 + mStarts[segment] + mLengths[segment];
+    }
+
+    /**
+     * Shift the segments after the raw index when count non Cursor items are inserted.
+     */
+    void onInserted(int rawIndex, int count) {
+        for (int i = ceilByRawIndex(rawIndex); i < mSegmentCount; i++) {
+            mRawIndexes[i] += count;
+            mStarts[i] += count;
+        }
+    }
+
+    void insertCursor(int rawIndex, Cursor cursor) {
+        insertCursor(rawIndex, cursor, null);
+    }
+
+    void insertCursor(int rawIndex, Cursor cursor, CursorRowCache rowCache) {
+        int length = cursor.getCount();
+        int start = toPosition(rawIndex);
+        int segment = ceilByRawIndex(rawIndex);
+        for (int i = segment; i < mSegmentCount; i++) {
+            mRawIndexes[i] += 1;
+            mStarts[i] += length;
+        }
+        ensureCapacity(mSegmentCount + 1);
+        int moveCount = mSegmentCount - segment;
+        if (moveCount > 0) {
+            System.arraycopy(mRawIndexes, segment, mRawIndexes, segment + 1, moveCount);
+            System.arraycopy(mStarts, segment, mStarts, segment + 1, moveCount);
+            System.arraycopy(mLengths, segment, mLengths, segment + 1, moveCount);
+            System.arraycopy(mCursors, segment, mCursors, segment + 1, moveCount);
+            System.arraycopy(mRowCaches, segment, mRowCaches, segment + 1, moveCount);
+        }
+        mRawIndexes[segment] = rawIndex;
+        mStarts[segment] = start;
+        mLengths[segment] = length;
+        mCursors[segment] = cursor;
+        mRowCaches[segment] = rowCache;
+        mSegmentCount++;
+        mExtraSize += length - 1;
+    }
+
+    /**
+     * Drop the segments in the raw range [fromRawIndex, toRawIndex) and shift the following ones.
+     * @param positionCount The number of adapter positions which the raw range covers.
+     */
+    void onRemoved(int fromRawIndex, int toRawIndex, int positionCount) {
+        int first = ceilByRawIndex(fromRawIndex);
+        int last = ceilByRawIndex(toRawIndex);
+        for (int i = first; i < last; i++) {
+            mExtraSize -= mLengths[i] - 1;
+            mCursors[i] = null;
+            mRowCaches[i] = null;
+        }
+        int rawCount = toRawIndex - fromRawIndex;
+        for (int i = last; i < mSegmentCount; i++) {
+            mRawIndexes[i] -= rawCount;
+            mStarts[i] -= positionCount;
+        }
+        int removeCount = last - first;
+        if (removeCount > 0) {
+            int moveCount = mSegmentCount - last;
+            System.arraycopy(mRawIndexes, last, mRawIndexes, first, moveCount);
+            System.arraycopy(mStarts, last, mStarts, first, moveCount);
+            System.arraycopy(mLengths, last, mLengths, first, moveCount);
+            System.arraycopy(mCursors, last, mCursors, first, moveCount);
+            System.arraycopy(mRowCaches, last, mRowCaches, first, moveCount);
+            for (int i = mSegmentCount - removeCount; i < mSegmentCount; i++) {
+                mCursors[i] = null;
+                mRowCaches[i] = null;
+            }
+            mSegmentCount -= removeCount;
+        }
+    }
+
+    /**
+     * Rebuild the index from scratch, used when the whole list is replaced or compacted.
+     * The Cursors which are still in the list keep their row caches, they are found by identity.
+     */
+    void reset(List dataList) {
+        int oldCount = mSegmentCount;
+        Cursor[] oldCursors = oldCount > 0 ? Arrays.copyOf(mCursors, oldCount) : null;
+        CursorRowCache[] oldRowCaches = oldCount > 0 ? Arrays.copyOf(mRowCaches, oldCount) : null;
+        clear();
+        for (int i = 0, size = dataList.size(); i < size; i++) {
+            Object data = dataList.get(i);
+            if (data instanceof Cursor) {
+                CursorRowCache rowCache = null;
+                for (int j = 0; j < oldCount; j++) {
+                    if (oldCursors[j] == data) {
+                        rowCache = oldRowCaches[j];
+                        break;
+                    }
+                }
+                insertCursor(i, (Cursor) data, rowCache);
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < mSegmentCount; i++) {
+            mCursors[i] = null;
+            mRowCaches[i] = null;
+        }
+        mSegmentCount = 0;
+        mExtraSize = 0;
+    }
+
+    // Last segment whose start <= position.
+    private int floorByStart(int position) {
+        int low = 0;
+        int high = mSegmentCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mStarts[mid] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    // Last segment whose raw index <= rawIndex.
+    private int floorByRawIndex(int rawIndex) {
+        return ceilByRawIndex(rawIndex + 1) - 1;
+    }
+
+    // First segment whose raw index >= rawIndex.
+    private int ceilByRawIndex(int rawIndex) {
+        int low = 0;
+        int high = mSegmentCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mRawIndexes[mid] < rawIndex) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mRawIndexes.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, mRawIndexes.length * 2);
+        int[] rawIndexes = new int[newCapacity];
+        int[] starts = new int[newCapacity];
+        int[] lengths = new int[newCapacity];
+        Cursor[] cursors = new Cursor[newCapacity];
+        CursorRowCache[] rowCaches = new CursorRowCache[newCapacity];
+        System.arraycopy(mRawIndexes, 0, rawIndexes, 0, mSegmentCount);
+        System.arraycopy(mStarts, 0, starts, 0, mSegmentCount);
+        System.arraycopy(mLengths, 0, lengths, 0, mSegmentCount);
+        System.arraycopy(mCursors, 0, cursors, 0, mSegmentCount);
+        System.arraycopy(mRowCaches, 0, rowCaches, 0, mSegmentCount);
+        mRawIndexes = rawIndexes;
+        mStarts = starts;
+        mLengths = lengths;
+        mCursors = cursors;
+        mRowCaches = rowCaches;
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.util.Log;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,9 +17,11 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 @SuppressWarnings({"unchecked", "rawtypes", "BooleanMethodIsAlwaysInverted"})
 public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
@@ -29,19 +32,37 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
     private LayoutInflater mInflater;
     private RecyclerView mRecyclerView;
     private DataManager mDataManager;
-    private Map<Integer, Integer> mDataWithItemTypeMap;
+    // Identity map for registered classes and a primitive map for CustomData and OnDataTypeCreator types.
+    private ClassTypeMap mClassWithItemTypeMap;
+    private SparseIntArray mDataWithItemTypeMap;
     private SparseArray<VHBridge> mItemTypeWithBridgeMap;
     private int mAutoIncreaseItemType = DATA_TYPE_LIMIT;
     private Context mContext; //通过外部传入好还是onAttachedToRecyclerView拿去
     private Lifecycle mLifecycle;
     private OnDataTypeCreator mOnDataTypeCreator;
+    // Only exists while attached, the notifications keep it in step with the data.
+    private PositionCache mViewTypeCache;
+    private BridgeSpanSizeLookup mSpanSizeLookup;
+    private PreInflater mPreInflater;
+    private ViewTypeRegistry mViewTypeRegistry;
+    private PoolSizer mPoolSizer;
+    private RvPaginator mPaginator;
+    // Only exists while attached and a registered bridge supports prefetch.
+    private Prefetcher mPrefetcher;
+    // Reused for merging the Notify payloads of one bind, a holder must not keep it.
+    private final Notify mMergedNotify = new Notify(0);
+    // Holders of the bridges which support lifecycle, only the attached ones follow every event.
+    private final List<VHolder> mAttachedLifecycleHolders = new ArrayList<>();
+    private final Set<VHolder> mLifecycleHolders = Collections.newSetFromMap(new WeakHashMap<VHolder, Boolean>());
 
     public VHAdapter(Lifecycle lifecycle) {
         mDataManager = new DataManager();
         mDataManager.setAdapter(this);
         mLifecycle = lifecycle;
-        mDataWithItemTypeMap = new HashMap<>();
+        mClassWithItemTypeMap = new ClassTypeMap();
+        mDataWithItemTypeMap = new SparseIntArray();
         mItemTypeWithBridgeMap = new SparseArray<>();
+        mPoolSizer = new PoolSizer();
     }
 
     @Override
@@ -58,11 +79,18 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
         VHolder vh = null;
         VHBridge bridge = mItemTypeWithBridgeMap.get(viewType);
         if (bridge != null) {
-            View view = bridge.itemView();
+            View view = mPreInflater != null ? mPreInflater.takeView(viewType) : null;
+            boolean preInflated = view != null;
+            if (view == null) {
+                view = bridge.itemView();
+            }
             if (view == null) {
                 int layoutId = bridge.layoutId();
                 if (layoutId != -1) {
                     view = mInflater.inflate(layoutId, parent, false);
+                    if (mPreInflater != null && bridge.preInflateCount() > 0) {
+                        mPreInflater.onMiss();
+                    }
                 }
             }
             if (view != null) {
@@ -72,8 +100,16 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
                 vh = bridge.onCreateViewHolder(parent, viewType);
             }
             vh.attachBridge(bridge);
+            vh.mPreInflated = preInflated;
+            if (!preInflated) {
+                // Only PreInflater creates holders from its own views, they are planned and not a miss of the pool.
+                mPoolSizer.onCreated(viewType);
+            }
             if (mLifecycle != null && bridge.isSupportLifecycle()) {
-                mLifecycle.addObserver(vh);
+                mLifecycleHolders.add(vh);
+                if (mLifecycle.getCurrentState().isAtLeast(Lifecycle.State.CREATED)) {
+                    vh.moveToLifecycleState(Lifecycle.State.CREATED);
+                }
             }
         }
         if (vh == null) {
@@ -96,60 +132,165 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
 
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
+        if (mViewTypeRegistry != null) {
+            attachOwnBridge(holder);
+        }
+        mPoolSizer.onBound(holder);
+        if (holder.mPreInflated) {
+            holder.mPreInflated = false;
+            if (mPreInflater != null) {
+                mPreInflater.onHit();
+            }
+        }
         holder.bindFull(position, mDataManager.get(position));
+        if (mPaginator != null) {
+            mPaginator.onBind(position);
+        }
     }
 
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        if (mViewTypeRegistry != null) {
+            attachOwnBridge(holder);
+        }
+        for (int i = 0, size = payloads.size(); i < size; i++) {
+            if (!(payloads.get(i) instanceof Notify)) {
+                // A full bind covers all the partial ones, so it is done only once.
+                super.onBindViewHolder(holder, position, payloads);
+                return;
+            }
+        }
         if (payloads.isEmpty()) {
             super.onBindViewHolder(holder, position, payloads);
-        } else {
-            for (Object payload : payloads) {
-                if (payload instanceof Notify) {
-                    holder.bindPartial(mDataManager.get(position), (Notify) payload);
-                } else {
-                    super.onBindViewHolder(holder, position, payloads);
+            return;
+        }
+        // One bindPartial per Notify type, with the Notify of the same type merged in order.
+        Object data = mDataManager.get(position);
+        for (int i = 0, size = payloads.size(); i < size; i++) {
+            Notify notify = (Notify) payloads.get(i);
+            if (hasNotifyType(payloads, i, notify.mType)) {
+                continue;
+            }
+            Notify merged = notify;
+            for (int j = i + 1; j < size; j++) {
+                Notify next = (Notify) payloads.get(j);
+                if (next.mType != notify.mType) {
+                    continue;
+                }
+                if (merged == notify) {
+                    mMergedNotify.copyFrom(notify);
+                    merged = mMergedNotify;
                 }
+                if (!merged.mergeFrom(next)) {
+                    // The slots can not tell the parts apart, a full bind shows all of them.
+                    onBindViewHolder(holder, position);
+                    return;
+                }
+            }
+            holder.bindPartial(data, merged);
+        }
+    }
+
+    // Whether a payload before the end has the type, i.e. the type has been bound already.
+    private static boolean hasNotifyType(List<Object> payloads, int end, int type) {
+        for (int i = 0; i < end; i++) {
+            if (((Notify) payloads.get(i)).mType == type) {
+                return true;
             }
         }
+        return false;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull VH holder) {
+        mPoolSizer.onAttached(holder.getItemViewType());
+        VHBridge bridge = holder.getBridge();
+        if (mLifecycle != null && bridge != null && bridge.isSupportLifecycle()) {
+            mLifecycleHolders.add(holder);
+            mAttachedLifecycleHolders.add(holder);
+            holder.moveToLifecycleState(mLifecycle.getCurrentState());
+        }
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull VH holder) {
+        mPoolSizer.onDetached(holder.getItemViewType());
+        if (mAttachedLifecycleHolders.remove(holder) && holder.getLifecycleState().isAtLeast(Lifecycle.State.STARTED)) {
+            // Scrolled out, the holder is paused and stopped until it is attached again.
+            holder.moveToLifecycleState(Lifecycle.State.CREATED);
+        }
+    }
+
+    // With a shared RecycledViewPool the holder may have been created by another adapter.
+    private void attachOwnBridge(VH holder) {
+        VHBridge bridge = mItemTypeWithBridgeMap.get(holder.getItemViewType());
+        if (bridge != null && holder.getBridge() != bridge) {
+            holder.attachBridge(bridge);
+        }
     }
 
     @Override
     public int getItemViewType(int position) {
-        Object data = mDataManager.get(position);
+        PositionCache viewTypeCache = mViewTypeCache;
+        if (viewTypeCache == null) {
+            return computeItemViewType(position);
+        }
+        int itemCount = getItemCount();
+        if (viewTypeCache.size() != itemCount) {
+            viewTypeCache.reset(itemCount);
+        }
+        int type = viewTypeCache.get(position);
+        if (type == PositionCache.UNKNOWN) {
+            type = computeItemViewType(position);
+            viewTypeCache.put(position, type);
+        }
+        return type;
+    }
+
+    private int computeItemViewType(int position) {
+        int type;
+        // Resolve Cursor rows by position, so the Cursor is not moved just for the type.
+        boolean cursorRow = mDataManager.isCursorRow(position);
+        if (cursorRow && mOnDataTypeCreator == null) {
+            type = mClassWithItemTypeMap.get(Cursor.class);
+        } else {
+            type = resolveItemType(mDataManager.get(position), position, cursorRow);
+        }
+        return type != ClassTypeMap.NO_TYPE ? type : super.getItemViewType(position);
+    }
+
+    /**
+     * @return The item type of the data, or {@link ClassTypeMap#NO_TYPE} if it is not registered.
+     */
+    private int resolveItemType(Object data, int position, boolean cursorRow) {
         if (mOnDataTypeCreator != null) {
             int dataType = mOnDataTypeCreator.createDataType(data, position);
             if (dataType != DATA_NO_TYPE) {
-                return safeGetItemType(dataType, position);
+                return mDataWithItemTypeMap.get(dataType, ClassTypeMap.NO_TYPE);
             }
         }
         if (data instanceof CustomData) {
-            return safeGetItemType(((CustomData)data).mType, position);
+            return mDataWithItemTypeMap.get(((CustomData)data).mType, ClassTypeMap.NO_TYPE);
         }
-        if (data instanceof Cursor) {
-            return safeGetItemType(Cursor.class.hashCode(), position);
+        if (cursorRow) {
+            return mClassWithItemTypeMap.get(Cursor.class);
         }
-        if (mDataWithItemTypeMap.containsKey(data.getClass().hashCode())) {
-            return safeGetItemType(data.getClass().hashCode(), position);
-        }
-        return super.getItemViewType(position);
-    }
-
-    private int safeGetItemType(int dataType, int position) {
-        Integer val = mDataWithItemTypeMap.get(dataType);
-        return val != null ? val : super.getItemViewType(position);
+        return mClassWithItemTypeMap.get(data.getClass());
     }
 
     /**
      * register bridge with many class
+     * @throws IllegalStateException If the adapter has stable ids and is attached, and the bridge does not support them.
      */
     public void register(VHBridge bridge, Class... clzs) {
         for (Class clz : clzs) {
             if (clz == null) {
                 continue;
             }
-            int dataType = clz.hashCode();
-            registerInternal(bridge, dataType, false);
+            if (mClassWithItemTypeMap.containsKey(clz)) {
+                continue;
+            }
+            mClassWithItemTypeMap.put(clz, registerInternal(bridge, clz));
         }
     }
 
@@ -161,59 +302,171 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
             if (customData == null) {
                 continue;
             }
-            registerInternal(bridge, customData.mType, true);
+            registerDataType(bridge, customData.mType);
         }
     }
+
     /**
      * This method should be used in conjunction with the {@link OnDataTypeCreator}
      * @param bridge The VHBridge to be registered
      * @param dataType DataType definition is less than 100
+     * @throws IllegalStateException If the adapter has stable ids and is attached, and the bridge does not support them.
      */
     public void register(VHBridge bridge, int dataType) {
-        registerInternal(bridge, dataType, true);
+        registerDataType(bridge, dataType);
     }
 
-    private void registerInternal(VHBridge bridge, int dataType, boolean fromSetup) {
-        if (fromSetup && dataType > DATA_TYPE_LIMIT) {
-            Log.w(TAG, "registerInternal: dataType is out of range");
+    private void registerDataType(VHBridge bridge, int dataType) {
+        if (dataType > DATA_TYPE_LIMIT) {
+            Log.w(TAG, "registerDataType: dataType is out of range");
             return;
         }
-        if (mDataWithItemTypeMap.containsKey(dataType)) {
+        if (mDataWithItemTypeMap.indexOfKey(dataType) >= 0) {
             return;
         }
+        mDataWithItemTypeMap.put(dataType, registerInternal(bridge, dataType));
+    }
+
+    private int registerInternal(VHBridge bridge, Object dataKey) {
+        // Stable ids can not be turned off while observed, and the new items would break them.
+        if (hasObservers() && hasStableIds() && !bridge.isSupportStableId()) {
+            throw new IllegalStateException(bridge.getClass().getSimpleName()
+                    + " does not support stable id, register it before the adapter is attached");
+        }
         bridge.onInitAdapterAndManager(this, mDataManager);
         if (mRecyclerView != null && mContext != null) {
             bridge.onInitRvAndContext(mRecyclerView, mContext);
         }
-        mAutoIncreaseItemType++;
-        bridge.mType = mAutoIncreaseItemType;
-        mItemTypeWithBridgeMap.put(mAutoIncreaseItemType, bridge);
-        mDataWithItemTypeMap.put(dataType, mAutoIncreaseItemType);
+        int itemType = mViewTypeRegistry != null
+                ? mViewTypeRegistry.typeOf(bridge.getClass(), dataKey) : ++mAutoIncreaseItemType;
+        bridge.mType = itemType;
+        mItemTypeWithBridgeMap.put(itemType, bridge);
+        updateStableIds();
+        mPoolSizer.onBridgeRegistered(bridge);
+        if (mPreInflater != null && mRecyclerView != null) {
+            mPreInflater.preInflate(mRecyclerView, bridge);
+        }
+        if (mRecyclerView != null && mPrefetcher == null && bridge.isSupportPrefetch()) {
+            mPrefetcher = new Prefetcher(this, mRecyclerView);
+        }
+        // Positions resolved before the registration may have fallen back to the default type.
+        invalidateViewTypes();
+        return itemType;
     }
 
-    public boolean isRegister(Object data) {
-        if (data == null) {
-            return false;
+    /**
+     * Take the view types from the registry, so adapters using the same registry can share a RecycledViewPool.
+     * It must be set before any bridge is registered.
+     */
+    public void setViewTypeRegistry(ViewTypeRegistry viewTypeRegistry) {
+        if (mItemTypeWithBridgeMap.size() > 0) {
+            Log.w(TAG, "setViewTypeRegistry: must be set before any bridge is registered");
+            return;
         }
-        if (mOnDataTypeCreator != null) {
-            int type = mOnDataTypeCreator.createDataType(data, DATA_NO_TYPE);
-            if (type != DATA_NO_TYPE) {
-                return mDataWithItemTypeMap.containsKey(type);
+        mViewTypeRegistry = viewTypeRegistry;
+    }
+
+    private void invalidateViewTypes() {
+        if (mViewTypeCache != null) {
+            mViewTypeCache.reset(getItemCount());
+        }
+        invalidateSpanSizes();
+    }
+
+    /**
+     * Drop the span sizes cached for GridLayoutManager, call it when the result of
+     * {@link VHBridge#getSpanSize(RecyclerView)} changes for a reason other than the data or the span count.
+     */
+    public void invalidateSpanSizes() {
+        if (mSpanSizeLookup != null) {
+            mSpanSizeLookup.invalidate();
+        }
+    }
+
+    // Stable ids can only be changed before the adapter is set to a RecyclerView.
+    private void updateStableIds() {
+        if (!hasObservers()) {
+            boolean supportStableId = true;
+            for (int i = 0, size = mItemTypeWithBridgeMap.size(); i < size; i++) {
+                if (!mItemTypeWithBridgeMap.valueAt(i).isSupportStableId()) {
+                    supportStableId = false;
+                    break;
+                }
             }
+            setHasStableIds(supportStableId);
         }
-        if (data instanceof CustomData) {
-            return mDataWithItemTypeMap.containsKey(((CustomData)data).mType);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (!hasStableIds()) {
+            return RecyclerView.NO_ID;
         }
-        if (data instanceof Cursor) {
-            return mDataWithItemTypeMap.containsKey(Cursor.class.hashCode());
+        VHBridge bridge = mItemTypeWithBridgeMap.get(getItemViewType(position));
+        if (bridge == null) {
+            return RecyclerView.NO_ID;
         }
-        return mDataWithItemTypeMap.containsKey(data.getClass().hashCode());
+        Object data = mDataManager.isCursorRow(position) ? mDataManager.getCursor(position) : mDataManager.get(position);
+        return bridge.getItemId(data);
+    }
+
+    public boolean isRegister(Object data) {
+        if (data == null) {
+            return false;
+        }
+        return resolveItemType(data, DATA_NO_TYPE, data instanceof Cursor) != ClassTypeMap.NO_TYPE;
+    }
+
+    VHBridge getBridge(int itemType) {
+        return mItemTypeWithBridgeMap.get(itemType);
+    }
+
+    VHBridge findBridge(Object data) {
+        if (data == null) {
+            return null;
+        }
+        int itemType = resolveItemType(data, DATA_NO_TYPE, data instanceof Cursor);
+        return itemType != ClassTypeMap.NO_TYPE ? mItemTypeWithBridgeMap.get(itemType) : null;
+    }
+
+    /**
+     * @return The number of pre-inflated holders which have been bound, see {@link VHBridge#preInflateCount()}.
+     */
+    public int getPreInflateHitCount() {
+        return mPreInflater != null ? mPreInflater.getHitCount() : 0;
+    }
+
+    /**
+     * @return The number of views inflated on the main thread for the bridges which declare a pre-inflate count.
+     */
+    public int getPreInflateMissCount() {
+        return mPreInflater != null ? mPreInflater.getMissCount() : 0;
+    }
+
+    /**
+     * Size the RecycledViewPool from the observed usage of every view type,
+     * at least the peak number of attached holders, and larger if holders keep being created after they are reused.
+     */
+    public void setAdaptivePoolSize(boolean adaptive) {
+        mPoolSizer.setAdaptive(adaptive);
+    }
+
+    /**
+     * @return The usage of the view type, or null if no holder of the type has been created or registered.
+     */
+    public PoolStats getPoolStats(int viewType) {
+        return mPoolSizer.get(viewType);
     }
 
     public DataManager getDataManager() {
         return mDataManager;
     }
 
+    // Set by the RvPaginator which is notified of every full bind.
+    void setPaginator(RvPaginator paginator) {
+        mPaginator = paginator;
+    }
+
 
     @Override
     public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
@@ -226,36 +479,90 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
             VHBridge bridge = mItemTypeWithBridgeMap.valueAt(i);
             bridge.onInitRvAndContext(mRecyclerView, mContext);
         }
+        if (mViewTypeCache == null) {
+            mViewTypeCache = new PositionCache();
+            mViewTypeCache.reset(getItemCount());
+            registerAdapterDataObserver(mViewTypeCache);
+        }
         setUpGridSpanSize();
+        mPoolSizer.attach(mRecyclerView);
+        if (mPreInflater == null) {
+            mPreInflater = new PreInflater(this);
+        }
+        for (int i = 0, size = mItemTypeWithBridgeMap.size(); i < size; i++) {
+            VHBridge bridge = mItemTypeWithBridgeMap.valueAt(i);
+            mPreInflater.preInflate(mRecyclerView, bridge);
+            if (mPrefetcher == null && bridge.isSupportPrefetch()) {
+                mPrefetcher = new Prefetcher(this, mRecyclerView);
+            }
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        if (mViewTypeCache != null) {
+            unregisterAdapterDataObserver(mViewTypeCache);
+            mViewTypeCache = null;
+        }
+        if (mSpanSizeLookup != null) {
+            mSpanSizeLookup.release();
+            mSpanSizeLookup = null;
+        }
+        if (mPreInflater != null) {
+            mPreInflater.cancel();
+        }
+        if (mPrefetcher != null) {
+            mPrefetcher.release();
+            mPrefetcher = null;
+        }
+        mPoolSizer.detach();
+        mRecyclerView = null;
     }
 
     private void setUpGridSpanSize() {
         if (mRecyclerView.getLayoutManager() instanceof GridLayoutManager) {
-            final GridLayoutManager gridLayoutManager = (GridLayoutManager)mRecyclerView.getLayoutManager();
-            gridLayoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
-                public int getSpanSize(int position) {
-                    int type = getItemViewType(position);
-                    for (int i = 0, size = mItemTypeWithBridgeMap.size(); i < size; i++) {
-                        if (mItemTypeWithBridgeMap.valueAt(i).mType == type) {
-                            return mItemTypeWithBridgeMap.valueAt(i).getSpanSize(mRecyclerView);
-                        }
-                    }
-                    return 1;
-                }
-            });
+            GridLayoutManager gridLayoutManager = (GridLayoutManager)mRecyclerView.getLayoutManager();
+            if (mSpanSizeLookup != null) {
+                mSpanSizeLookup.release();
+            }
+            mSpanSizeLookup = new BridgeSpanSizeLookup(this, gridLayoutManager, mRecyclerView);
+            gridLayoutManager.setSpanSizeLookup(mSpanSizeLookup);
         }
     }
 
     @Override
     public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        Lifecycle.State state = source.getLifecycle().getCurrentState();
+        for (int i = 0, size = mAttachedLifecycleHolders.size(); i < size; i++) {
+            mAttachedLifecycleHolders.get(i).moveToLifecycleState(state);
+        }
         if (event == Lifecycle.Event.ON_DESTROY) {
             source.getLifecycle().removeObserver(this);
+            // The detached holders which are still alive are destroyed too.
+            for (VHolder holder : mLifecycleHolders.toArray(new VHolder[0])) {
+                holder.moveToLifecycleState(Lifecycle.State.DESTROYED);
+            }
+            mLifecycleHolders.clear();
+            mAttachedLifecycleHolders.clear();
             mInflater = null;
             mRecyclerView = null;
             mDataManager.clear();
             mDataManager = null;
+            mClassWithItemTypeMap.clear();
+            mClassWithItemTypeMap = null;
             mDataWithItemTypeMap.clear();
             mDataWithItemTypeMap = null;
+            mViewTypeCache = null;
+            mSpanSizeLookup = null;
+            mPaginator = null;
+            if (mPrefetcher != null) {
+                mPrefetcher.release();
+                mPrefetcher = null;
+            }
+            if (mPreInflater != null) {
+                mPreInflater.cancel();
+                mPreInflater = null;
+            }
             mItemTypeWithBridgeMap.clear();
             mItemTypeWithBridgeMap = null;
             mContext = null;
@@ -269,5 +576,6 @@ public class VHAdapter<VH extends VHolder> extends RecyclerView.Adapter<VH>
 
     public void setOnDataTypeCreator(OnDataTypeCreator onDataTypeCreator) {
         mOnDataTypeCreator = onDataTypeCreator;
+        invalidateViewTypes();
     }
 }
@@ -1,6 +1,7 @@
 package com.bear.librv;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -40,14 +41,100 @@ public abstract class VHBridge<VH extends VHolder> {
         return 1;
     }
 
+    /**
+     * Return true if {@link #getSpanSize(RecyclerView)} only depends on the span count,
+     * then it is called once per span count instead of once per position.
+     */
+    protected boolean isSpanSizeConstant() {
+        return false;
+    }
+
+    /**
+     * The number of views inflated from {@link #layoutId()} on a background thread when the adapter is attached,
+     * their holders are put into the RecycledViewPool before they are needed. 0 means no pre-inflation.
+     */
+    protected int preInflateCount() {
+        return 0;
+    }
+
+    /**
+     * The max number of holders kept in the RecycledViewPool for this bridge, -1 keeps the default of 5.
+     * Use a large value for a type with many visible items and a small one for a rare type.
+     */
+    protected int maxRecycledViews() {
+        return -1;
+    }
+
     protected boolean isSupportLifecycle() {
         return false;
     }
 
+    /**
+     * Return true to receive {@link #onPrefetch(int, Object)} for the positions ahead in the scroll direction.
+     */
+    protected boolean isSupportPrefetch() {
+        return false;
+    }
+
+    /**
+     * Called on the main thread before the position is bound, start loading its resources here,
+     * like decoding an image into the cache. The number of positions ahead grows with the scroll velocity.
+     * A Cursor row is only moved to the position during the call, read the values needed before returning.
+     */
+    protected void onPrefetch(int position, @NonNull Object data) {
+
+    }
+
+    /**
+     * Called when the position scrolls away or the data changes before the position is bound,
+     * with the data given to {@link #onPrefetch(int, Object)}.
+     */
+    protected void onCancelPrefetch(int position, @NonNull Object data) {
+
+    }
+
     protected boolean isFullSpan() {
         return false;
     }
 
+    /**
+     * Return true if {@link #getItemId(Object)} gives a stable id for every data of this bridge.
+     * The adapter turns on stable ids only if all the registered bridges support them.
+     */
+    protected boolean isSupportStableId() {
+        return false;
+    }
+
+    /**
+     * The stable id of the data, it should be unique in the whole adapter.
+     * For a Cursor row the default is the value of the _id column.
+     */
+    protected long getItemId(@NonNull Object data) {
+        if (data instanceof Cursor) {
+            Cursor cursor = (Cursor) data;
+            int index = cursor.getColumnIndex("_id");
+            if (index >= 0) {
+                return cursor.getLong(index);
+            }
+        }
+        return RecyclerView.NO_ID;
+    }
+
+    /**
+     * Used by {@link DataManager#setDataAsync(java.util.List)} to decide whether two data represent the same item.
+     */
+    protected boolean areItemsTheSame(@NonNull Object oldData, @NonNull Object newData) {
+        return oldData.equals(newData);
+    }
+
+    /**
+     * Used by {@link DataManager#setDataAsync(java.util.List)} to decide whether the item needs to be rebound.
+     * Only called when {@link #areItemsTheSame(Object, Object)} returns true.
+     */
+    protected boolean areContentsTheSame(@NonNull Object oldData, @NonNull Object newData) {
+        return oldData.equals(newData);
+    }
+
     void onInitRvAndContext(RecyclerView rv, Context context) {
         mRecyclerView = rv;
         mContext = context;
@@ -22,6 +22,14 @@ public class VHolder<DATA> extends RecyclerView.ViewHolder implements LifecycleE
     private Context mContext;
     private RecyclerView mRecyclerView;
     private VHBridge mBridge;
+    // Created from a pre-inflated view and not bound yet.
+    boolean mPreInflated;
+    // Bound at least once, a later bind is a reuse.
+    boolean mBound;
+    // Click targets indexed by RvListener in the fast dispatch mode.
+    View[] mClickTargets;
+    // The state which the lifecycle callbacks have been dispatched up to.
+    private Lifecycle.State mLifecycleState = Lifecycle.State.INITIALIZED;
 
     public VHolder(View itemView) {
         super(itemView);
@@ -74,10 +82,21 @@ public class VHolder<DATA> extends RecyclerView.ViewHolder implements LifecycleE
         }
     }
 
+    /**
+     * For a {@link PagedCursor} the row may not be loaded yet, use {@link #isCursorLoaded(Cursor)} to show a placeholder,
+     * the row is rebound when it is loaded.
+     */
     protected void bindCursor(int pos, Cursor cursor) {
 
     }
 
+    protected boolean isCursorLoaded(Cursor cursor) {
+        return !(cursor instanceof PagedCursor) || ((PagedCursor) cursor).isLoaded();
+    }
+
+    /**
+     * Called once per Notify type, the Notify may be merged from several updates and reused, so do not keep it.
+     */
     protected void bindPartial(DATA data, @NonNull Notify obj) {
 
     }
@@ -118,23 +137,68 @@ public class VHolder<DATA> extends RecyclerView.ViewHolder implements LifecycleE
 
     @Override
     public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        dispatchLifecycleEvent(event);
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            source.getLifecycle().removeObserver(this);
+        }
+    }
+
+    /**
+     * Step the callbacks one event at a time until the holder reaches the state, used by {@link VHAdapter}
+     * which moves an attached holder with the Lifecycle and a detached holder back to CREATED.
+     */
+    void moveToLifecycleState(Lifecycle.State state) {
+        while (mLifecycleState != state && mLifecycleState != Lifecycle.State.DESTROYED) {
+            if (mLifecycleState.compareTo(state) < 0) {
+                if (mLifecycleState == Lifecycle.State.INITIALIZED) {
+                    dispatchLifecycleEvent(Lifecycle.Event.ON_CREATE);
+                } else if (mLifecycleState == Lifecycle.State.CREATED) {
+                    dispatchLifecycleEvent(Lifecycle.Event.ON_START);
+                } else {
+                    dispatchLifecycleEvent(Lifecycle.Event.ON_RESUME);
+                }
+            } else {
+                if (mLifecycleState == Lifecycle.State.RESUMED) {
+                    dispatchLifecycleEvent(Lifecycle.Event.ON_PAUSE);
+                } else if (mLifecycleState == Lifecycle.State.STARTED) {
+                    dispatchLifecycleEvent(Lifecycle.Event.ON_STOP);
+                } else if (mLifecycleState == Lifecycle.State.CREATED) {
+                    dispatchLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+                } else {
+                    // Never created, nothing to destroy.
+                    mLifecycleState = Lifecycle.State.DESTROYED;
+                }
+            }
+        }
+    }
+
+    Lifecycle.State getLifecycleState() {
+        return mLifecycleState;
+    }
+
+    private void dispatchLifecycleEvent(Lifecycle.Event event) {
         if (event == Lifecycle.Event.ON_CREATE) {
+            mLifecycleState = Lifecycle.State.CREATED;
             onCreate();
         } else if (event == Lifecycle.Event.ON_START) {
+            mLifecycleState = Lifecycle.State.STARTED;
             onStart();
         } else if (event == Lifecycle.Event.ON_RESUME) {
+            mLifecycleState = Lifecycle.State.RESUMED;
             onResume();
         } else if (event == Lifecycle.Event.ON_PAUSE) {
+            mLifecycleState = Lifecycle.State.STARTED;
             onPause();
         } else if (event == Lifecycle.Event.ON_STOP) {
+            mLifecycleState = Lifecycle.State.CREATED;
             onStop();
         } else if (event == Lifecycle.Event.ON_DESTROY) {
+            mLifecycleState = Lifecycle.State.DESTROYED;
             onDestroy();
             mAdapter = null;
             mDataManager = null;
             mContext = null;
             mRecyclerView = null;
-            source.getLifecycle().removeObserver(this);
         }
     }
 
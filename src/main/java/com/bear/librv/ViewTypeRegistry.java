@@ -0,0 +1,66 @@
+package com.bear.librv;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assign the same view type to the same bridge class and data type in every VHAdapter which uses the registry,
+ * so the adapters can share one RecycledViewPool, e.g. nested carousels.
+ * Use {@link #global()} for the whole process, or one registry per shared pool.
+ * A holder created by another adapter is attached to the bridge of the adapter which binds it.
+ */
+@SuppressWarnings("rawtypes")
+public final class ViewTypeRegistry {
+    // Far above the types numbered by a single adapter, so the two never collide.
+    private static final int FIRST_TYPE = 1 << 16;
+    private static final ViewTypeRegistry GLOBAL = new ViewTypeRegistry();
+
+    private final Map<Key, Integer> mTypeMap = new HashMap<>();
+    private int mNextType = FIRST_TYPE;
+
+    public static ViewTypeRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param dataKey The registered Class, or the Integer of a CustomData type or OnDataTypeCreator type.
+     */
+    synchronized int typeOf(@NonNull Class bridgeClass, @NonNull Object dataKey) {
+        Key key = new Key(bridgeClass, dataKey);
+        Integer type = mTypeMap.get(key);
+        if (type == null) {
+            type = mNextType++;
+            mTypeMap.put(key, type);
+        }
+        return type;
+    }
+
+    private static final class Key {
+        private final Class mBridgeClass;
+        private final Object mDataKey;
+
+        Key(Class bridgeClass, Object dataKey) {
+            mBridgeClass = bridgeClass;
+            mDataKey = dataKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mBridgeClass == key.mBridgeClass && mDataKey.equals(key.mDataKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mBridgeClass.hashCode() + mDataKey.hashCode();
+        }
+    }
+}